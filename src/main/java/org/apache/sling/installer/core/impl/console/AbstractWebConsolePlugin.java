@@ -56,7 +56,31 @@ abstract class AbstractWebConsolePlugin extends GenericServlet {
         }
 
         final StringBuilder b = new StringBuilder(input.length());
-        for (int i = 0; i < input.length(); i++) {
+        escapeXml(b, input);
+        return b.toString();
+    }
+
+    /**
+     * Append the escaped XML text
+     * @param b The builder to append to
+     * @param input The input text, {@code null} is appended as {@code "null"}
+     */
+    static void escapeXml(final StringBuilder b, final String input) {
+        if (input == null) {
+            b.append((String) null);
+            return;
+        }
+        escapeXml(b, input, 0);
+    }
+
+    /**
+     * Append the escaped XML text from the given start to the end of the input
+     * @param b The builder to append to
+     * @param input The input text
+     * @param start The index of the first character to append
+     */
+    static void escapeXml(final StringBuilder b, final String input, final int start) {
+        for (int i = start; i < input.length(); i++) {
             final char c = input.charAt(i);
             if (c == '&') {
                 b.append("&amp;");
@@ -72,6 +96,39 @@ abstract class AbstractWebConsolePlugin extends GenericServlet {
                 b.append(c);
             }
         }
+    }
+
+    /**
+     * Quote a text as JSON string
+     * @param input The input text
+     * @return The quoted text or {@code null} as JSON literal
+     */
+    protected String quoteJson(final String input) {
+        if (input == null) {
+            return "null";
+        }
+
+        final StringBuilder b = new StringBuilder(input.length() + 2);
+        b.append('"');
+        for (int i = 0; i < input.length(); i++) {
+            final char c = input.charAt(i);
+            if (c == '"') {
+                b.append("\\\"");
+            } else if (c == '\\') {
+                b.append("\\\\");
+            } else if (c == '\n') {
+                b.append("\\n");
+            } else if (c == '\r') {
+                b.append("\\r");
+            } else if (c == '\t') {
+                b.append("\\t");
+            } else if (c < ' ' || c == '<' || c == '>' || c == '&') {
+                b.append(String.format("\\u%04x", (int) c));
+            } else {
+                b.append(c);
+            }
+        }
+        b.append('"');
         return b.toString();
     }
 }
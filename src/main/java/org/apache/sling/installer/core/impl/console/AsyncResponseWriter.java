@@ -0,0 +1,242 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.console;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Renders responses outside of the container thread. The content is rendered on an
+ * executor into chunks which are written to the client using non-blocking I/O whenever
+ * the connection is ready, so neither rendering nor slow clients occupy a container thread.
+ */
+final class AsyncResponseWriter {
+
+    /** Size of the chunks handed to the container. */
+    static final int CHUNK_SIZE = 8 * 1024;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncResponseWriter.class);
+
+    /**
+     * Renders the content of a response.
+     */
+    @FunctionalInterface
+    interface Content {
+        void render(PrintWriter pw) throws IOException;
+    }
+
+    private final ExecutorService executor;
+
+    private final long timeout;
+
+    /**
+     * @param executor The executor rendering the responses
+     * @param timeout The timeout in milliseconds for a response to be written
+     */
+    AsyncResponseWriter(final ExecutorService executor, final long timeout) {
+        this.executor = executor;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Write the content asynchronously. Content type and character encoding (UTF-8)
+     * of the response must already be set.
+     */
+    void write(final ServletRequest req, final ServletResponse res, final Content content) {
+        final AsyncContext context = req.startAsync(req, res);
+        context.setTimeout(this.timeout);
+        final Runnable task = new RenderTask(context, content);
+        try {
+            this.executor.execute(task);
+        } catch (final RejectedExecutionException ree) {
+            // executor is saturated or shut down, fall back to the current thread
+            task.run();
+        }
+    }
+
+    /**
+     * Abort the tasks which have not been started, completing their requests with
+     * status 503 instead of leaving them open until their timeout.
+     * @param tasks The tasks removed from the executor
+     */
+    static void abort(final List<Runnable> tasks) {
+        for (final Runnable task : tasks) {
+            if (task instanceof RenderTask) {
+                ((RenderTask) task).abort();
+            }
+        }
+    }
+
+    /**
+     * Renders the content of a started asynchronous request.
+     */
+    private final class RenderTask implements Runnable {
+
+        private final AsyncContext context;
+
+        private final Content content;
+
+        RenderTask(final AsyncContext context, final Content content) {
+            this.context = context;
+            this.content = content;
+        }
+
+        @Override
+        public void run() {
+            render(this.context, this.content);
+        }
+
+        void abort() {
+            final ServletResponse res = this.context.getResponse();
+            if (res instanceof HttpServletResponse && !res.isCommitted()) {
+                ((HttpServletResponse) res).setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            }
+            this.context.complete();
+        }
+    }
+
+    private void render(final AsyncContext context, final Content content) {
+        final ChunkedOutputStream chunks = new ChunkedOutputStream();
+        try {
+            final PrintWriter pw = new PrintWriter(new OutputStreamWriter(chunks, StandardCharsets.UTF_8));
+            content.render(pw);
+            pw.flush();
+            final ServletOutputStream out = context.getResponse().getOutputStream();
+            out.setWriteListener(new ChunkWriteListener(context, out, chunks.getChunks()));
+        } catch (final IOException | RuntimeException e) {
+            LOGGER.warn("Unable to render response", e);
+            final ServletResponse res = context.getResponse();
+            if (res instanceof HttpServletResponse && !res.isCommitted()) {
+                ((HttpServletResponse) res).setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            }
+            context.complete();
+        }
+    }
+
+    /**
+     * Output stream collecting the written bytes in chunks.
+     */
+    static final class ChunkedOutputStream extends OutputStream {
+
+        private final Deque<byte[]> chunks = new ArrayDeque<>();
+
+        private byte[] current = new byte[CHUNK_SIZE];
+
+        private int pos;
+
+        @Override
+        public void write(final int b) {
+            if (this.pos == this.current.length) {
+                this.chunks.add(this.current);
+                this.current = new byte[CHUNK_SIZE];
+                this.pos = 0;
+            }
+            this.current[this.pos++] = (byte) b;
+        }
+
+        @Override
+        public void write(final byte[] b, int off, int len) {
+            while (len > 0) {
+                if (this.pos == this.current.length) {
+                    this.chunks.add(this.current);
+                    this.current = new byte[CHUNK_SIZE];
+                    this.pos = 0;
+                }
+                final int count = Math.min(len, this.current.length - this.pos);
+                System.arraycopy(b, off, this.current, this.pos, count);
+                this.pos += count;
+                off += count;
+                len -= count;
+            }
+        }
+
+        /**
+         * Get the written chunks, the last one trimmed to its size.
+         */
+        Deque<byte[]> getChunks() {
+            if (this.pos > 0) {
+                this.chunks.add(Arrays.copyOf(this.current, this.pos));
+                this.current = new byte[CHUNK_SIZE];
+                this.pos = 0;
+            }
+            return this.chunks;
+        }
+    }
+
+    /**
+     * Writes the chunks whenever the container signals that the output stream is ready.
+     */
+    static final class ChunkWriteListener implements WriteListener {
+
+        private final AsyncContext context;
+
+        private final ServletOutputStream out;
+
+        private final Deque<byte[]> chunks;
+
+        private boolean completed;
+
+        ChunkWriteListener(final AsyncContext context, final ServletOutputStream out, final Deque<byte[]> chunks) {
+            this.context = context;
+            this.out = out;
+            this.chunks = chunks;
+        }
+
+        @Override
+        public synchronized void onWritePossible() throws IOException {
+            while (!this.completed && this.out.isReady()) {
+                final byte[] chunk = this.chunks.poll();
+                if (chunk == null) {
+                    this.completed = true;
+                    this.context.complete();
+                } else {
+                    this.out.write(chunk);
+                }
+            }
+        }
+
+        @Override
+        public synchronized void onError(final Throwable t) {
+            LOGGER.debug("Unable to write response", t);
+            this.chunks.clear();
+            if (!this.completed) {
+                this.completed = true;
+                this.context.complete();
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.console;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writer counting the characters passed through to the underlying writer.
+ */
+final class CountingWriter extends FilterWriter {
+
+    private int count;
+
+    CountingWriter(final Writer out) {
+        super(out);
+    }
+
+    @Override
+    public void write(final int c) throws IOException {
+        super.write(c);
+        this.count++;
+    }
+
+    @Override
+    public void write(final char[] cbuf, final int off, final int len) throws IOException {
+        super.write(cbuf, off, len);
+        this.count += len;
+    }
+
+    @Override
+    public void write(final String str, final int off, final int len) throws IOException {
+        super.write(str, off, len);
+        this.count += len;
+    }
+
+    int getCount() {
+        return this.count;
+    }
+}
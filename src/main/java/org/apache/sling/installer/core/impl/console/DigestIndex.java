@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.console;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.sling.installer.api.info.InstallationState;
+import org.apache.sling.installer.api.info.Resource;
+import org.apache.sling.installer.api.info.ResourceGroup;
+import org.apache.sling.installer.api.tasks.RegisteredResource;
+
+/**
+ * Index of the digests of all resources, including the alternates of each group,
+ * retaining the digests which are provided by more than one URL or entity.
+ */
+final class DigestIndex {
+
+    /**
+     * A resource providing a digest.
+     */
+    record Occurrence(String section, String type, String entityId, String url) {}
+
+    /** Occurrences of the duplicate digests, in order of their first appearance. */
+    private final Map<String, List<Occurrence>> duplicates;
+
+    private int occurrenceCount;
+
+    DigestIndex(final InstallationState state) {
+        // values are either a single occurrence or a list of occurrences
+        final Map<String, Object> index = new LinkedHashMap<>();
+        add(index, OsgiInstallerWebConsolePlugin.SECTION_ACTIVE, state.getActiveResources());
+        add(index, OsgiInstallerWebConsolePlugin.SECTION_PROCESSED, state.getInstalledResources());
+        for (final RegisteredResource resource : state.getUntransformedResources()) {
+            add(index, OsgiInstallerWebConsolePlugin.SECTION_UNTRANSFORMED, resource);
+        }
+
+        final Map<String, List<Occurrence>> result = new LinkedHashMap<>();
+        for (final Map.Entry<String, Object> entry : index.entrySet()) {
+            if (entry.getValue() instanceof List) {
+                @SuppressWarnings("unchecked")
+                final List<Occurrence> occurrences = (List<Occurrence>) entry.getValue();
+                if (isDuplicate(occurrences)) {
+                    result.put(entry.getKey(), Collections.unmodifiableList(occurrences));
+                }
+            }
+        }
+        this.duplicates = Collections.unmodifiableMap(result);
+    }
+
+    private void add(final Map<String, Object> index, final String section, final List<ResourceGroup> groups) {
+        for (final ResourceGroup group : groups) {
+            for (final Resource resource : group.getResources()) {
+                add(index, section, resource);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void add(final Map<String, Object> index, final String section, final RegisteredResource resource) {
+        final String digest = resource.getDigest();
+        if (digest == null) {
+            return;
+        }
+        this.occurrenceCount++;
+        final Occurrence occurrence =
+                new Occurrence(section, resource.getType(), resource.getEntityId(), resource.getURL());
+        final Object current = index.putIfAbsent(digest, occurrence);
+        if (current instanceof Occurrence) {
+            final List<Occurrence> occurrences = new ArrayList<>(2);
+            occurrences.add((Occurrence) current);
+            occurrences.add(occurrence);
+            index.put(digest, occurrences);
+        } else if (current != null) {
+            ((List<Occurrence>) current).add(occurrence);
+        }
+    }
+
+    /**
+     * A digest is duplicate if any of its occurrences differs in URL or entity id from the first one.
+     */
+    private static boolean isDuplicate(final List<Occurrence> occurrences) {
+        final Occurrence first = occurrences.get(0);
+        for (int i = 1; i < occurrences.size(); i++) {
+            final Occurrence occurrence = occurrences.get(i);
+            if (!Objects.equals(first.url(), occurrence.url())
+                    || !Objects.equals(first.entityId(), occurrence.entityId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the digests provided by more than one URL or entity id, together with their occurrences.
+     */
+    Map<String, List<Occurrence>> getDuplicates() {
+        return this.duplicates;
+    }
+
+    /**
+     * Get the number of indexed resources with a digest.
+     */
+    int getOccurrenceCount() {
+        return this.occurrenceCount;
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.console;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.sling.installer.api.info.InstallationState;
+import org.apache.sling.installer.api.info.Resource;
+import org.apache.sling.installer.api.info.ResourceGroup;
+import org.apache.sling.installer.api.tasks.RegisteredResource;
+
+/**
+ * The installation state as retrieved from the installer at a given time,
+ * together with the lookup structures derived from it.
+ */
+final class InstallationSnapshot {
+
+    private final InstallationState state;
+
+    private final long created;
+
+    /** Active and processed groups by the entity id of their first resource. */
+    private final Map<String, ResourceGroup> groupsByEntityId;
+
+    /** Groups by the code of the installer type of their first resource. */
+    private final TypeBuckets<ResourceGroup> activeByType;
+
+    private final TypeBuckets<ResourceGroup> installedByType;
+
+    private final TypeBuckets<RegisteredResource> untransformedByType;
+
+    private final int resourceCount;
+
+    private final SnapshotDictionary dictionary;
+
+    /** Lazily built on first use. */
+    private volatile DigestIndex digestIndex;
+
+    private volatile PriorityAnalysis priorityAnalysis;
+
+    private volatile Timeline timeline;
+
+    private volatile SearchIndex searchIndex;
+
+    private volatile ReasonAggregation reasonAggregation;
+
+    InstallationSnapshot(final InstallationState state, final long created) {
+        this.state = state;
+        this.created = created;
+        final List<ResourceGroup> active = state.getActiveResources();
+        final List<ResourceGroup> installed = state.getInstalledResources();
+        final List<RegisteredResource> untransformed = state.getUntransformedResources();
+        this.groupsByEntityId = new HashMap<>((active.size() + installed.size()) * 4 / 3 + 1);
+        final SnapshotDictionary.Builder types = new SnapshotDictionary.Builder();
+        this.activeByType = index(active, types);
+        this.installedByType = index(installed, types);
+        this.untransformedByType = TypeBuckets.of(untransformed, resource -> types.intern(resource.getType()));
+        this.dictionary = types.build();
+        this.resourceCount = this.activeByType.getItemCount()
+                + this.installedByType.getItemCount()
+                + this.untransformedByType.getItemCount();
+    }
+
+    private TypeBuckets<ResourceGroup> index(final List<ResourceGroup> groups, final SnapshotDictionary.Builder types) {
+        final List<ResourceGroup> nonEmpty = new ArrayList<>(groups.size());
+        for (final ResourceGroup group : groups) {
+            final List<Resource> resources = group.getResources();
+            if (!resources.isEmpty()) {
+                this.groupsByEntityId.putIfAbsent(resources.get(0).getEntityId(), group);
+                nonEmpty.add(group);
+            }
+        }
+        return TypeBuckets.of(
+                nonEmpty, group -> types.intern(group.getResources().get(0).getType()));
+    }
+
+    InstallationState getState() {
+        return this.state;
+    }
+
+    /**
+     * Check whether this snapshot has been taken before the given time.
+     */
+    boolean isOlderThan(final long time) {
+        return this.created < time;
+    }
+
+    /**
+     * Get the number of non empty active and processed groups and untransformed resources.
+     */
+    int getResourceCount() {
+        return this.resourceCount;
+    }
+
+    /**
+     * Get the dictionary of the types of this snapshot, its codes are used by the buckets.
+     */
+    SnapshotDictionary getDictionary() {
+        return this.dictionary;
+    }
+
+    /**
+     * Get the non empty active groups by the code of the installer type of their first resource.
+     */
+    TypeBuckets<ResourceGroup> getActiveByType() {
+        return this.activeByType;
+    }
+
+    /**
+     * Get the non empty processed groups by the code of the installer type of their first resource.
+     */
+    TypeBuckets<ResourceGroup> getInstalledByType() {
+        return this.installedByType;
+    }
+
+    /**
+     * Get the untransformed resources by the code of their installer type.
+     */
+    TypeBuckets<RegisteredResource> getUntransformedByType() {
+        return this.untransformedByType;
+    }
+
+    /**
+     * Get the index of the digests of all resources, building it on first use.
+     */
+    DigestIndex getDigestIndex() {
+        DigestIndex index = this.digestIndex;
+        if (index == null) {
+            index = new DigestIndex(this.state);
+            this.digestIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Get the search index of all resources, building it on first use.
+     */
+    SearchIndex getSearchIndex() {
+        SearchIndex index = this.searchIndex;
+        if (index == null) {
+            index = new SearchIndex(this.state);
+            this.searchIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Get the aggregated exclusion reasons and install infos, building them on first use.
+     */
+    ReasonAggregation getReasonAggregation() {
+        ReasonAggregation aggregation = this.reasonAggregation;
+        if (aggregation == null) {
+            aggregation = new ReasonAggregation(this.state);
+            this.reasonAggregation = aggregation;
+        }
+        return aggregation;
+    }
+
+    /**
+     * Get the analysis of the priorities within the groups, building it on first use.
+     * @param tolerance The maximum difference of priorities still considered a tie
+     */
+    PriorityAnalysis getPriorityAnalysis(final int tolerance) {
+        PriorityAnalysis analysis = this.priorityAnalysis;
+        if (analysis == null || analysis.getTolerance() != tolerance) {
+            analysis = new PriorityAnalysis(this.state, tolerance);
+            this.priorityAnalysis = analysis;
+        }
+        return analysis;
+    }
+
+    /**
+     * Get the most recently changed resources, building them on first use.
+     * @param limit The maximum number of resources
+     */
+    Timeline getTimeline(final int limit) {
+        Timeline result = this.timeline;
+        if (result == null || result.getLimit() != limit) {
+            result = new Timeline(this.state, limit);
+            this.timeline = result;
+        }
+        return result;
+    }
+
+    /**
+     * Check whether an active or processed group exists for the entity id.
+     */
+    boolean containsEntity(final String entityId) {
+        return this.groupsByEntityId.containsKey(entityId);
+    }
+
+    /**
+     * Get the group for an entity id
+     * @param entityId The entity id of the group
+     * @return The group or {@code null}
+     */
+    ResourceGroup getGroup(final String entityId) {
+        return this.groupsByEntityId.get(entityId);
+    }
+}
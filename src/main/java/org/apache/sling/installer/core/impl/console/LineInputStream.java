@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.console;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Objects;
+
+/**
+ * Input stream of lines encoded in UTF-8, each terminated by a line feed. The lines are
+ * only retrieved from the iterator as the stream is read, so the content is never held
+ * in memory as a whole.
+ */
+final class LineInputStream extends InputStream {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final Iterator<String> lines;
+
+    private byte[] buffer = EMPTY;
+
+    private int pos;
+
+    LineInputStream(final Iterator<String> lines) {
+        this.lines = lines;
+    }
+
+    /**
+     * Make sure the buffer contains unread bytes.
+     * @return {@code false} if all lines have been read
+     */
+    private boolean fill() {
+        while (this.pos == this.buffer.length) {
+            if (!this.lines.hasNext()) {
+                return false;
+            }
+            this.buffer = (this.lines.next() + '\n').getBytes(StandardCharsets.UTF_8);
+            this.pos = 0;
+        }
+        return true;
+    }
+
+    @Override
+    public int read() {
+        return fill() ? this.buffer[this.pos++] & 0xff : -1;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (len == 0) {
+            return 0;
+        }
+        int count = 0;
+        while (count < len && fill()) {
+            final int n = Math.min(len - count, this.buffer.length - this.pos);
+            System.arraycopy(this.buffer, this.pos, b, off + count, n);
+            this.pos += n;
+            count += n;
+        }
+        return count == 0 ? -1 : count;
+    }
+}
@@ -21,26 +21,45 @@ package org.apache.sling.installer.core.impl.console;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Collection;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
 
 import jakarta.servlet.ServletRequest;
 import jakarta.servlet.ServletResponse;
-import org.apache.sling.installer.api.InstallableResource;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.apache.sling.installer.api.info.InfoProvider;
-import org.apache.sling.installer.api.info.InstallationState;
 import org.apache.sling.installer.api.info.Resource;
 import org.apache.sling.installer.api.info.ResourceGroup;
 import org.apache.sling.installer.api.tasks.RegisteredResource;
 import org.apache.sling.installer.api.tasks.ResourceState;
 import org.apache.sling.installer.api.tasks.TaskResource;
 import org.osgi.framework.Constants;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferencePolicyOption;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
 
 @Component(
         service = jakarta.servlet.Servlet.class,
@@ -54,38 +73,358 @@ import org.osgi.service.component.annotations.ReferencePolicyOption;
             "felix.webconsole.configprinter.modes=txt",
             "felix.webconsole.css=" + OsgiInstallerWebConsolePlugin.RES_LOC + "list.css"
         })
+@Designate(ocd = OsgiInstallerWebConsolePlugin.Config.class)
 @SuppressWarnings("serial")
 public class OsgiInstallerWebConsolePlugin extends AbstractWebConsolePlugin {
 
     public static final String LABEL = "osgi-installer";
     protected static final String RES_LOC = LABEL + "/res/ui/";
 
+    /** Suffix of the request path returning the resources of a single group as JSON. */
+    static final String GROUP_DETAIL_SUFFIX = "/group.json";
+
+    /**
+     * Suffix of the request path returning the resource tables as HTML fragment, loaded by the page.
+     * It must not end with {@code .html}, the web console decorates those requests with its header and footer.
+     */
+    static final String RESOURCES_SUFFIX = "/resources.fragment";
+
+    /** Suffix of the request path returning the entity ids of a single reason as JSON. */
+    static final String REASON_SUFFIX = "/reason.json";
+
+    /** Request parameter containing the kind of a reason. */
+    static final String PARAM_KIND = "kind";
+
+    /** Request parameter containing the text of a reason. */
+    static final String PARAM_TEXT = "text";
+
+    /** Suffix of the request path returning the resources matching a query as JSON. */
+    static final String SEARCH_SUFFIX = "/search.json";
+
+    /** Request parameter containing the search query. */
+    static final String PARAM_QUERY = "q";
+
+    /** Request parameter selecting whether the query matches any part instead of the beginning of a value. */
+    static final String PARAM_MODE = "mode";
+
+    static final String MODE_PREFIX = "prefix";
+
+    static final String MODE_SUBSTRING = "substring";
+
+    /** Number of search results if not requested otherwise. */
+    static final int DEFAULT_SEARCH_LIMIT = 50;
+
+    /** Request parameter restricting the rendered resources to a single section. */
+    static final String PARAM_SECTION = "section";
+
+    /** Request parameter restricting the rendered resources to a single installer type. */
+    static final String PARAM_TYPE = "type";
+
+    /** Request parameter selecting the view rendered instead of the resources. */
+    static final String PARAM_VIEW = "view";
+
+    /** Request parameter limiting the number of resources of the timeline and the search results. */
+    static final String PARAM_LIMIT = "limit";
+
+    static final String VIEW_DUPLICATES = "duplicates";
+
+    static final String VIEW_PRIORITIES = "priorities";
+
+    static final String VIEW_TIMELINE = "timeline";
+
+    static final String VIEW_REASONS = "reasons";
+
+    /** File name of the attachment containing one JSON record per resource. */
+    static final String STATE_ATTACHMENT = "osgi-installer-state.ndjson";
+
+    /** File name of the attachment containing the summary statistics as JSON. */
+    static final String SUMMARY_ATTACHMENT = "osgi-installer-summary.json";
+
+    /** Number of resources of the timeline if not requested otherwise. */
+    static final int DEFAULT_TIMELINE_LIMIT = 100;
+
+    static final String SECTION_ACTIVE = "active";
+
+    static final String SECTION_PROCESSED = "processed";
+
+    static final String SECTION_UNTRANSFORMED = "untransformed";
+
+    /** Number of responses waiting to be rendered asynchronously before using the container thread. */
+    private static final int RENDER_QUEUE_SIZE = 64;
+
+    /** Time in seconds to wait for the queued responses on deactivation. */
+    private static final long SHUTDOWN_TIMEOUT = 5;
+
+    /** Request attribute set by the web console containing the root of this plugin. */
+    private static final String ATTR_PLUGIN_ROOT = "felix.webconsole.pluginRoot";
+
+    /** Cells of an active row following the entity id, which is appended directly. */
+    private static final RowTemplate ACTIVE_ROW =
+            RowTemplate.html("</td><td>%s</td><td>%s</td><td>%s</td><td>%s</td></tr>");
+
+    private static final RowTemplate ATTRIBUTE_ROW =
+            RowTemplate.html("<tr><td></td><td colspan='2'>%s</td><td></td><td></td></tr>");
+
+    private static final RowTemplate DUPLICATE_ROW =
+            RowTemplate.html("<tr><td>%s</td><td>%s</td><td>%s</td><td>%s</td></tr>");
+
+    private static final RowTemplate PRIORITY_ROW =
+            RowTemplate.html("<tr><td>%s</td><td>%s</td><td>%s</td><td>%s</td><td>%s</td><td>%s</td><td>%s</td></tr>");
+
+    private static final RowTemplate TIMELINE_ROW =
+            RowTemplate.html("<tr><td>%s</td><td>%s</td><td>%s</td><td>%s</td><td>%s</td><td>%s</td><td>%s</td></tr>");
+
+    /** The entity ids of a reason are only loaded once its details are opened. */
+    private static final RowTemplate REASON_ROW = RowTemplate.html("<tr><td>%s</td><td>%s</td><td>"
+            + "<details class='installer-reason' data-href='%s'><summary>%s</summary></details></td></tr>");
+
+    private static final RowTemplate UNTRANSFORMED_ROW = RowTemplate.html("<tr><td>%s</td><td>%s</td></tr>");
+
+    /** Remainder of an active or processed line following the entity id, which is printed directly. */
+    private static final RowTemplate RESOURCE_LINE = RowTemplate.text(": %s, %s, %s, %s%n");
+
+    private static final RowTemplate ATTRIBUTE_LINE = RowTemplate.text("  : %s");
+
+    private static final RowTemplate ALTERNATE_LINE = RowTemplate.text("  - %s, %s, %s, %s%n");
+
+    private static final RowTemplate UNTRANSFORMED_LINE = RowTemplate.text("- %s, %s%n");
+
+    private static final ViewTable DUPLICATES_TABLE = new ViewTable(
+            "duplicates", "Duplicate Digests", "occurrences", List.of("Digest", "Entity ID", "URL", "Section"));
+
+    private static final ViewTable PRIORITIES_TABLE = new ViewTable(
+            "priorities",
+            "Priority Conflicts",
+            "conflicts",
+            List.of(
+                    "Conflict",
+                    "Entity ID",
+                    "Section",
+                    "Installed Digest/Priority",
+                    "Installed URL (Version)",
+                    "Alternate Digest/Priority",
+                    "Alternate URL (Version)"));
+
+    private static final ViewTable TIMELINE_TABLE = new ViewTable(
+            "timeline",
+            "Recent Changes",
+            "changes",
+            List.of("Last Change", "Entity ID", "Section", "Digest/Priority", "URL (Version)", "State", "Error"));
+
+    private static final ViewTable REASONS_TABLE = new ViewTable(
+            "reasons", "Exclusion Reasons and Install Infos", "reasons", List.of("Kind", "Count", "Reason"));
+
+    /**
+     * Table of a view, following the statline of the view.
+     * @param rows The name of the rows used in the truncation notice
+     * @param columns The titles of the columns
+     */
+    private record ViewTable(String id, String title, String rows, List<String> columns) {}
+
+    /**
+     * Renders the rows of an item of a view.
+     */
+    @FunctionalInterface
+    private interface ViewRows<T> {
+
+        /**
+         * Render the rows of the item, the first row has already been acquired.
+         * @param budget The budget to acquire any additional rows from
+         */
+        void render(PrintWriter pw, T item, RenderBudget budget);
+    }
+
+    @ObjectClassDefinition(
+            name = "Apache Sling OSGi Installer Web Console Plugin",
+            description = "Renders the state of the OSGi installer in the web console.")
+    public @interface Config {
+
+        @AttributeDefinition(
+                name = "Snapshot Max Age",
+                description = "Time in milliseconds the installation state retrieved from the installer "
+                        + "is reused for subsequent requests.")
+        long snapshot_max_age() default 2000;
+
+        @AttributeDefinition(
+                name = "Max Rows",
+                description = "Maximum number of resources rendered at once. If the installation state contains "
+                        + "more resources, only the number of resources per type is shown. 0 disables the limit.")
+        int render_max_rows() default 20000;
+
+        @AttributeDefinition(
+                name = "Max Size",
+                description = "Maximum size in characters of the resources rendered at once. If the output "
+                        + "exceeds this size, only the number of resources per type is shown. 0 disables the limit.")
+        int render_max_size() default 16 * 1024 * 1024;
+
+        @AttributeDefinition(
+                name = "Async Render Threads",
+                description = "Number of threads rendering the responses which are not embedded in the web console "
+                        + "page, if the container supports asynchronous requests. 0 renders all responses "
+                        + "on the container thread.")
+        int render_async_threads() default 2;
+
+        @AttributeDefinition(
+                name = "Async Render Timeout",
+                description = "Time in milliseconds an asynchronously rendered response may take to be written.")
+        long render_async_timeout() default 30000;
+
+        @AttributeDefinition(
+                name = "Row Cache Size",
+                description = "Maximum number of rendered rows of active and processed resources which are kept "
+                        + "to be reused while the resources are unchanged. 0 disables the cache.")
+        int render_cache_size() default 20000;
+
+        @AttributeDefinition(
+                name = "Priority Tolerance",
+                description = "Maximum difference between the priority of the installed resource and an alternate "
+                        + "with a different digest which is reported as priority tie.")
+        int analysis_priority_tolerance() default 0;
+    }
+
     @Reference(policyOption = ReferencePolicyOption.GREEDY)
     private transient InfoProvider installer;
 
-    private String getType(final RegisteredResource rsrc) {
-        final String type = rsrc.getType();
-        if (type.equals(InstallableResource.TYPE_BUNDLE)) {
-            return "Bundles";
-        } else if (type.equals(InstallableResource.TYPE_CONFIG)) {
-            return "Configurations";
-        } else if (type.equals(InstallableResource.TYPE_FILE)) {
-            return "Files";
-        } else if (type.equals(InstallableResource.TYPE_PROPERTIES)) {
-            return "Properties";
+    private long snapshotMaxAge;
+
+    private int maxRows;
+
+    private int maxSize;
+
+    private transient ExecutorService renderExecutor;
+
+    private transient AsyncResponseWriter asyncWriter;
+
+    private transient RowFragmentCache rowCache;
+
+    private int priorityTolerance;
+
+    /** Number of renders which exceeded the budget. */
+    private final AtomicLong fallbackCount = new AtomicLong();
+
+    private transient volatile InstallationSnapshot snapshot;
+
+    @Activate
+    protected void activate(final Config config) {
+        this.snapshotMaxAge = config.snapshot_max_age();
+        this.maxRows = config.render_max_rows();
+        this.maxSize = config.render_max_size();
+        this.priorityTolerance = config.analysis_priority_tolerance();
+        this.rowCache = config.render_cache_size() > 0 ? new RowFragmentCache(config.render_cache_size()) : null;
+        if (config.render_async_threads() > 0) {
+            final AtomicInteger threadCount = new AtomicInteger();
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                    config.render_async_threads(),
+                    config.render_async_threads(),
+                    60,
+                    TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(RENDER_QUEUE_SIZE),
+                    r -> {
+                        final Thread thread = new Thread(r, "osgi-installer-console-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            executor.allowCoreThreadTimeOut(true);
+            this.renderExecutor = executor;
+            this.asyncWriter = new AsyncResponseWriter(executor, config.render_async_timeout());
         }
-        return type;
     }
 
-    private String getEntityId(final RegisteredResource rsrc, String alias) {
-        String id = rsrc.getEntityId();
-        final int pos = id.indexOf(':');
-        if (pos != -1) {
-            id = id.substring(pos + 1);
+    @Deactivate
+    protected void deactivate() {
+        if (this.renderExecutor != null) {
+            // the requests of queued tasks are already asynchronous, finish or abort them
+            this.renderExecutor.shutdown();
+            try {
+                if (!this.renderExecutor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                    AsyncResponseWriter.abort(this.renderExecutor.shutdownNow());
+                }
+            } catch (final InterruptedException e) {
+                AsyncResponseWriter.abort(this.renderExecutor.shutdownNow());
+                Thread.currentThread().interrupt();
+            }
+            this.renderExecutor = null;
         }
+        this.asyncWriter = null;
+        this.rowCache = null;
+        this.snapshot = null;
+    }
+
+    long getFallbackCount() {
+        return this.fallbackCount.get();
+    }
+
+    /**
+     * Get the current snapshot of the installation state, retrieving a new one
+     * from the installer if the cached one is outdated.
+     */
+    InstallationSnapshot getSnapshot() {
+        final long now = System.currentTimeMillis();
+        InstallationSnapshot current = this.snapshot;
+        if (current == null || current.isOlderThan(now - this.snapshotMaxAge)) {
+            current = new InstallationSnapshot(this.installer.getInstallationState(), now);
+            this.snapshot = current;
+            final RowFragmentCache cache = this.rowCache;
+            if (cache != null) {
+                // drop the rows of removed entities
+                cache.retainAll(current::containsEntity);
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Get the entity id without its prefix.
+     * @param type The type of the resource, {@code null} if unknown
+     */
+    private static String getId(final SnapshotDictionary dictionary, final String type, final String entityId) {
+        return entityId.substring(dictionary.getIdStart(dictionary.getCode(type), entityId));
+    }
+
+    private String getEntityId(
+            final SnapshotDictionary dictionary, final int code, final RegisteredResource rsrc, final String alias) {
+        final String entityId = rsrc.getEntityId();
+        final String id = entityId.substring(dictionary.getIdStart(code, entityId));
         return (alias == null ? id : id + '\n' + alias);
     }
 
+    /**
+     * Append the escaped entity id without its prefix, followed by the alias if any.
+     * @param code The code of the type of the bucket the resource is rendered in
+     */
+    private static void appendEntityId(
+            final StringBuilder b,
+            final SnapshotDictionary dictionary,
+            final int code,
+            final RegisteredResource rsrc,
+            final String alias) {
+        final String entityId = rsrc.getEntityId();
+        escapeXml(b, entityId, dictionary.getIdStart(code, entityId));
+        if (alias != null) {
+            b.append('\n');
+            escapeXml(b, alias);
+        }
+    }
+
+    /**
+     * Print the entity id without its prefix, followed by the alias if any.
+     * @param code The code of the type of the bucket the resource is printed in
+     */
+    private static void printEntityId(
+            final PrintWriter pw,
+            final SnapshotDictionary dictionary,
+            final int code,
+            final RegisteredResource rsrc,
+            final String alias) {
+        final String entityId = rsrc.getEntityId();
+        final int start = dictionary.getIdStart(code, entityId);
+        pw.write(entityId, start, entityId.length() - start);
+        if (alias != null) {
+            pw.print('\n');
+            pw.print(alias);
+        }
+    }
+
     private String getURL(final Resource rsrc) {
         if (rsrc.getVersion() != null) {
             return rsrc.getURL() + " (" + rsrc.getVersion() + ")";
@@ -127,232 +466,1041 @@ public class OsgiInstallerWebConsolePlugin extends AbstractWebConsolePlugin {
         return dateFormat.format(d);
     }
 
+    private String getPluginRoot(final ServletRequest req) {
+        final Object pluginRoot = req.getAttribute(ATTR_PLUGIN_ROOT);
+        return pluginRoot != null ? pluginRoot.toString() : LABEL;
+    }
+
     @Override
     public void service(final ServletRequest req, final ServletResponse res) throws IOException {
-        StringWriter bufferedWriter = new StringWriter();
-        final PrintWriter bufferedPw = new PrintWriter(bufferedWriter);
+        if (req instanceof HttpServletRequest) {
+            final String pathInfo = ((HttpServletRequest) req).getPathInfo();
+            if (pathInfo != null && pathInfo.endsWith(GROUP_DETAIL_SUFFIX)) {
+                this.serviceGroupDetail(req, res);
+                return;
+            }
+            if (pathInfo != null && pathInfo.endsWith(SEARCH_SUFFIX)) {
+                this.serviceSearch(req, res);
+                return;
+            }
+            if (pathInfo != null && pathInfo.endsWith(REASON_SUFFIX)) {
+                this.serviceReason(req, res);
+                return;
+            }
+            if (pathInfo != null && pathInfo.endsWith(RESOURCES_SUFFIX)) {
+                this.serviceResources(req, res);
+                return;
+            }
+        }
+        final InstallationSnapshot snapshot = this.getSnapshot();
+        final String pluginRoot = getPluginRoot(req);
 
         PrintWriter pw = res.getWriter();
-        final InstallationState state = this.installer.getInstallationState();
         pw.print("<p class='statline ui-state-highlight'>Apache Sling OSGi Installer");
-        if (state.getActiveResources().isEmpty()
-                && state.getInstalledResources().isEmpty()
-                && state.getUntransformedResources().isEmpty()) {
+        if (snapshot.getResourceCount() == 0) {
             pw.print(" - no resources registered.");
         }
-
         pw.print("</p>");
-        pw.println("<ul class=list>");
+        final String view = req.getParameter(PARAM_VIEW);
+        renderViewLinks(pw, pluginRoot, view);
+        if (VIEW_DUPLICATES.equals(view)) {
+            renderDuplicates(pw, snapshot);
+            return;
+        }
+        if (VIEW_PRIORITIES.equals(view)) {
+            renderPriorities(pw, snapshot);
+            return;
+        }
+        if (VIEW_REASONS.equals(view)) {
+            renderReasons(pw, snapshot, pluginRoot);
+            return;
+        }
+        if (VIEW_TIMELINE.equals(view)) {
+            renderTimeline(pw, snapshot, getLimit(req, DEFAULT_TIMELINE_LIMIT));
+            return;
+        }
+        renderResourcesContainer(pw, pluginRoot, req.getParameter(PARAM_SECTION), req.getParameter(PARAM_TYPE));
+    }
+
+    /**
+     * Render the element the resource tables are loaded into by {@code list.js}, as the page
+     * itself is written on the container thread.
+     */
+    private void renderResourcesContainer(
+            final PrintWriter pw, final String pluginRoot, final String section, final String type) {
+        final StringBuilder href = new StringBuilder(pluginRoot).append(RESOURCES_SUFFIX);
+        char separator = '?';
+        if (section != null) {
+            href.append(separator).append(PARAM_SECTION).append('=');
+            href.append(URLEncoder.encode(section, StandardCharsets.UTF_8));
+            separator = '&';
+        }
+        if (type != null) {
+            href.append(separator).append(PARAM_TYPE).append('=');
+            href.append(URLEncoder.encode(type, StandardCharsets.UTF_8));
+        }
+        pw.print("<div class='installer-resources' data-href='");
+        pw.print(escapeXml(href.toString()));
+        pw.println("'><p class='statline'>Loading resources...</p></div>");
+    }
+
+    /**
+     * Write the resource tables as HTML fragment.
+     */
+    private void serviceResources(final ServletRequest req, final ServletResponse res) throws IOException {
+        final InstallationSnapshot snapshot = this.getSnapshot();
+        final String pluginRoot = getPluginRoot(req);
+        final String section = req.getParameter(PARAM_SECTION);
+        final String type = req.getParameter(PARAM_TYPE);
+        res.setContentType("text/html");
+        res.setCharacterEncoding("UTF-8");
+        this.write(req, res, pw -> renderResources(pw, snapshot, pluginRoot, section, type));
+    }
+
+    private void renderResources(
+            final PrintWriter pw,
+            final InstallationSnapshot snapshot,
+            final String pluginRoot,
+            final String section,
+            final String type) {
+        final boolean filtered = section != null || type != null;
+        final StringWriter navWriter = new StringWriter();
+        final PrintWriter navPw = new PrintWriter(navWriter);
+        final StringWriter bufferedWriter = new StringWriter();
+        final PrintWriter bufferedPw = new PrintWriter(bufferedWriter);
+        final RenderBudget budget = new RenderBudget(
+                this.maxRows, this.maxSize, () -> bufferedWriter.getBuffer().length());
+
+        if (!filtered && !budget.fits(snapshot.getResourceCount())) {
+            this.fallbackCount.incrementAndGet();
+            renderSummary(pw, snapshot, pluginRoot, budget);
+            return;
+        }
+
+        navPw.println("<ul class=list>");
+        if (section == null || SECTION_ACTIVE.equals(section)) {
+            renderActiveResources(navPw, bufferedPw, snapshot, type, budget);
+        }
+        if (section == null || SECTION_PROCESSED.equals(section)) {
+            renderProcessedResources(navPw, bufferedPw, snapshot, type, pluginRoot, budget);
+        }
+        if (section == null || SECTION_UNTRANSFORMED.equals(section)) {
+            renderUntransformedResources(navPw, bufferedPw, snapshot, type, budget);
+        }
+        navPw.println("</ul>");
+
+        if (budget.isExhausted()) {
+            this.fallbackCount.incrementAndGet();
+            if (!filtered) {
+                renderSummary(pw, snapshot, pluginRoot, budget);
+                return;
+            }
+            pw.print("<p class='statline'>Output truncated, only the first ");
+            pw.print(budget.getRows());
+            pw.print(" resources are shown.</p>");
+        }
+        pw.print(navWriter.toString());
+        pw.print(bufferedWriter.toString());
+    }
+
+    private void renderViewLinks(final PrintWriter pw, final String pluginRoot, final String view) {
+        pw.print("<p class='statline'>");
+        renderViewLink(pw, pluginRoot, null, "Resources", view);
+        pw.print(" | ");
+        renderViewLink(pw, pluginRoot, VIEW_DUPLICATES, "Duplicates", view);
+        pw.print(" | ");
+        renderViewLink(pw, pluginRoot, VIEW_PRIORITIES, "Priorities", view);
+        pw.print(" | ");
+        renderViewLink(pw, pluginRoot, VIEW_TIMELINE, "Timeline", view);
+        pw.print(" | ");
+        renderViewLink(pw, pluginRoot, VIEW_REASONS, "Reasons", view);
+        pw.print(
+                " | <input type='search' class='installer-search' placeholder='Search entity ids and URLs' data-href='");
+        pw.print(escapeXml(pluginRoot + SEARCH_SUFFIX));
+        pw.println("'/></p>");
+        pw.println("<ul class='list installer-search-results' hidden></ul>");
+        pw.println("<script type='text/javascript' src='" + escapeXml(pluginRoot) + "/res/ui/list.js'></script>");
+    }
+
+    private void renderViewLink(
+            final PrintWriter pw,
+            final String pluginRoot,
+            final String view,
+            final String title,
+            final String current) {
+        if (Objects.equals(view, current)) {
+            pw.print("<b>" + title + "</b>");
+        } else {
+            final String href = view == null ? pluginRoot : pluginRoot + "?" + PARAM_VIEW + "=" + view;
+            pw.print("<a href='" + escapeXml(href) + "'>" + title + "</a>");
+        }
+    }
+
+    /**
+     * Render the statline and the table of a view, buffering the table so that
+     * a truncation notice can precede it.
+     * @param statline The statline, without the enclosing paragraph
+     * @param maxRows The maximum number of rows, {@code 0} to only limit the size
+     * @param items The items, the table is omitted if there are none
+     */
+    private <T> void renderView(
+            final PrintWriter pw,
+            final String statline,
+            final ViewTable table,
+            final int maxRows,
+            final Collection<T> items,
+            final ViewRows<T> rows) {
+        pw.print("<p class='statline'>");
+        pw.print(statline);
+        pw.println("</p>");
+        if (items.isEmpty()) {
+            return;
+        }
+        final StringWriter bufferedWriter = new StringWriter();
+        final PrintWriter bufferedPw = new PrintWriter(bufferedWriter);
+        final RenderBudget budget = new RenderBudget(
+                maxRows, this.maxSize, () -> bufferedWriter.getBuffer().length());
+
+        bufferedPw.println("<div id='" + table.id()
+                + "' class='ui-widget-header ui-corner-top buttonGroup' style='height: 15px;'>");
+        bufferedPw.print("<span style='float: left; margin-left: 1em;'>" + table.title() + "</span>");
+        bufferedPw.println("</div>");
+        bufferedPw.println("<table class='nicetable'><tbody>");
+        bufferedPw.print("<tr>");
+        for (final String column : table.columns()) {
+            bufferedPw.print("<th>" + column + "</th>");
+        }
+        bufferedPw.print("</tr>");
+        for (final T item : items) {
+            if (!budget.acquireRow()) {
+                break;
+            }
+            rows.render(bufferedPw, item, budget);
+            if (budget.isExhausted()) {
+                break;
+            }
+        }
+        bufferedPw.println("</tbody></table>");
+        if (budget.isExhausted()) {
+            this.fallbackCount.incrementAndGet();
+            pw.print("<p class='statline'>Output truncated, only the first ");
+            pw.print(budget.getRows());
+            pw.print(" " + table.rows() + " are shown.</p>");
+        }
+        pw.print(bufferedWriter.toString());
+    }
+
+    /**
+     * Render the digests provided by more than one URL or entity id.
+     */
+    private void renderDuplicates(final PrintWriter pw, final InstallationSnapshot snapshot) {
+        final Map<String, List<DigestIndex.Occurrence>> duplicates =
+                snapshot.getDigestIndex().getDuplicates();
+        final SnapshotDictionary dictionary = snapshot.getDictionary();
+        renderView(
+                pw,
+                duplicates.size() + " digests are provided by more than one URL or entity id.",
+                DUPLICATES_TABLE,
+                this.maxRows,
+                duplicates.entrySet(),
+                (bufferedPw, entry, budget) -> {
+                    // a digest may have many occurrences, each of them is a row of the budget
+                    final List<DigestIndex.Occurrence> occurrences = entry.getValue();
+                    for (int i = 0; i < occurrences.size() && (i == 0 || budget.acquireRow()); i++) {
+                        final DigestIndex.Occurrence occurrence = occurrences.get(i);
+                        DUPLICATE_ROW.print(
+                                bufferedPw,
+                                i == 0 ? entry.getKey() : "",
+                                getId(dictionary, occurrence.type(), occurrence.entityId()),
+                                occurrence.url(),
+                                getSectionTitle(occurrence.section()));
+                    }
+                });
+    }
+
+    /**
+     * Render the priority ties, shadowed versions and winners with lower priorities within the groups.
+     */
+    private void renderPriorities(final PrintWriter pw, final InstallationSnapshot snapshot) {
+        final List<PriorityAnalysis.Conflict> conflicts =
+                snapshot.getPriorityAnalysis(this.priorityTolerance).getConflicts();
+        final SnapshotDictionary dictionary = snapshot.getDictionary();
+        renderView(
+                pw,
+                conflicts.size() + " priority conflicts found in active and processed resources.",
+                PRIORITIES_TABLE,
+                this.maxRows,
+                conflicts,
+                (bufferedPw, conflict, budget) -> {
+                    final Resource winner = conflict.winner();
+                    PRIORITY_ROW.print(
+                            bufferedPw,
+                            conflict.kind().getTitle(),
+                            getId(dictionary, winner.getType(), winner.getEntityId()),
+                            getSectionTitle(conflict.section()),
+                            getInfo(winner),
+                            getURL(winner),
+                            getInfo(conflict.alternate()),
+                            getURL(conflict.alternate()));
+                });
+    }
+
+    /**
+     * Render the distinct exclusion reasons and install infos with the number of resources
+     * having them, each expandable to the entity ids of these resources, which are loaded on demand.
+     */
+    private void renderReasons(final PrintWriter pw, final InstallationSnapshot snapshot, final String pluginRoot) {
+        final ReasonAggregation aggregation = snapshot.getReasonAggregation();
+        final List<ReasonAggregation.Reason> reasons = aggregation.getReasons();
+        renderView(
+                pw,
+                reasons.size() + " distinct exclusion reasons and install infos of " + aggregation.getResourceCount()
+                        + " active and processed resources.",
+                REASONS_TABLE,
+                this.maxRows,
+                reasons,
+                (bufferedPw, reason, budget) -> REASON_ROW.print(
+                        bufferedPw,
+                        reason.getKind().getTitle(),
+                        String.valueOf(reason.getCount()),
+                        pluginRoot + REASON_SUFFIX + "?" + PARAM_KIND + "="
+                                + reason.getKind().name() + "&" + PARAM_TEXT + "="
+                                + URLEncoder.encode(reason.getText(), StandardCharsets.UTF_8),
+                        reason.getText()));
+    }
+
+    /**
+     * Get the requested number of resources, at most the maximum number of rows.
+     */
+    private int getLimit(final ServletRequest req, final int defaultLimit) {
+        int limit = defaultLimit;
+        final String value = req.getParameter(PARAM_LIMIT);
+        if (value != null) {
+            try {
+                limit = Math.max(0, Integer.parseInt(value.trim()));
+            } catch (final NumberFormatException nfe) {
+                // ignore and use the default
+            }
+        }
+        return this.maxRows > 0 ? Math.min(limit, this.maxRows) : limit;
+    }
+
+    /**
+     * Render the most recently changed resources, newest first.
+     */
+    private void renderTimeline(final PrintWriter pw, final InstallationSnapshot snapshot, final int limit) {
+        final Timeline timeline = snapshot.getTimeline(limit);
+        final SnapshotDictionary dictionary = snapshot.getDictionary();
+        final List<Timeline.Entry> entries = timeline.getEntries();
+        // the entries are already limited to the requested number, so only their size is limited
+        renderView(
+                pw,
+                entries.size() + " most recent of " + timeline.getChangedCount()
+                        + " changes in active and processed resources.",
+                TIMELINE_TABLE,
+                0,
+                entries,
+                (bufferedPw, entry, budget) -> {
+                    final Resource resource = entry.resource();
+                    TIMELINE_ROW.print(
+                            bufferedPw,
+                            formatDate(resource.getLastChange()),
+                            getEntityId(dictionary, dictionary.getCode(resource.getType()), resource, entry.alias()),
+                            getSectionTitle(entry.section()),
+                            getInfo(resource),
+                            getURL(resource),
+                            getState(resource),
+                            getError(resource));
+                });
+    }
+
+    private String getSectionTitle(final String section) {
+        if (SECTION_ACTIVE.equals(section)) {
+            return "Active";
+        } else if (SECTION_PROCESSED.equals(section)) {
+            return "Processed";
+        }
+        return "Untransformed";
+    }
+
+    private void renderActiveResources(
+            final PrintWriter pw,
+            final PrintWriter bufferedPw,
+            final InstallationSnapshot snapshot,
+            final String type,
+            final RenderBudget budget) {
         pw.println("<li>Active Resources");
         pw.println("<ul>");
 
-        String rt = null;
-        for (final ResourceGroup group : state.getActiveResources()) {
-            final Resource toActivate = group.getResources().get(0);
-            if (!toActivate.getType().equals(rt)) {
-                if (rt != null) {
-                    bufferedPw.println("</tbody></table>");
+        final SnapshotDictionary dictionary = snapshot.getDictionary();
+        final TypeBuckets<ResourceGroup> buckets = select(snapshot.getActiveByType(), dictionary, type);
+        boolean empty = true;
+        for (int i = 0; i < buckets.size(); i++) {
+            final int code = buckets.getCode(i);
+            final BiFunction<Resource, String, String> renderer =
+                    (resource, alias) -> renderActiveRow(dictionary, code, resource, alias);
+            boolean open = false;
+            for (final ResourceGroup group : buckets.get(code)) {
+                if (!budget.acquireRow()) {
+                    break;
                 }
-                String anchor = "active-" + escapeXml(getType(toActivate));
-                pw.println("<li><a href='#" + anchor + "'>" + escapeXml(getType(toActivate)) + "</a></li>");
-                bufferedPw.println("<div id='" + anchor
-                        + "' class='ui-widget-header ui-corner-top buttonGroup' style='height: 15px;'>");
-                bufferedPw.printf(
-                        "<span style='float: left; margin-left: 1em;'>Active Resources - %s</span>",
-                        getType(toActivate));
-                bufferedPw.println("</div>");
-                bufferedPw.println("<table class='nicetable'><tbody>");
-                bufferedPw.printf(
-                        "<tr><th>Entity ID</th><th>Digest/Priority</th><th>URL (Version)</th><th>State</th><th>Error</th></tr>");
-                rt = toActivate.getType();
-            }
-            bufferedPw.printf(
-                    "<tr><td>%s</td><td>%s</td><td>%s</td><td>%s</td><td>%s</td></tr>",
-                    escapeXml(getEntityId(toActivate, group.getAlias())),
-                    escapeXml(getInfo(toActivate)),
-                    escapeXml(getURL(toActivate)),
-                    escapeXml(toActivate.getState().toString()),
-                    escapeXml(getError(toActivate)));
-        }
-        if (rt != null) {
-            bufferedPw.println("</tbody></table>");
-        } else {
+                if (!open) {
+                    renderTableStart(
+                            pw,
+                            bufferedPw,
+                            SECTION_ACTIVE,
+                            "Active Resources",
+                            dictionary.getLabel(code),
+                            "<tr><th>Entity ID</th><th>Digest/Priority</th><th>URL (Version)</th><th>State</th><th>Error</th></tr>");
+                    open = true;
+                }
+                final Resource toActivate = group.getResources().get(0);
+                bufferedPw.print(getRow(SECTION_ACTIVE, toActivate, group.getAlias(), renderer));
+            }
+            if (open) {
+                bufferedPw.println("</tbody></table>");
+                empty = false;
+            }
+            if (budget.isExhausted()) {
+                break;
+            }
+        }
+        if (empty) {
             pw.println("<li>none</li>");
         }
-        rt = null;
 
         pw.println("</ul></li>");
+    }
+
+    private void renderProcessedResources(
+            final PrintWriter pw,
+            final PrintWriter bufferedPw,
+            final InstallationSnapshot snapshot,
+            final String type,
+            final String pluginRoot,
+            final RenderBudget budget) {
         pw.println("<li>Processed Resources");
         pw.println("<ul>");
 
-        for (final ResourceGroup group : state.getInstalledResources()) {
-            final Collection<Resource> resources = group.getResources();
-            if (!resources.isEmpty()) {
-                final Iterator<Resource> iter = resources.iterator();
-                final Resource first = iter.next();
-                if (!first.getType().equals(rt)) {
-                    if (rt != null) {
-                        bufferedPw.println("</tbody></table>");
-                    }
-                    String anchor = "processed-" + escapeXml(getType(first));
-                    pw.println("<li><a href='#" + anchor + "'>" + escapeXml(getType(first)) + "</a></li>");
-
-                    bufferedPw.println("<div id='" + anchor
-                            + "' class='ui-widget-header ui-corner-top buttonGroup' style='height: 15px;'>");
-                    bufferedPw.printf(
-                            "<span style='float: left; margin-left: 1em;'>Processed Resources - %s</span>",
-                            getType(first));
-                    bufferedPw.println("</div>");
-                    bufferedPw.println("<table class='nicetable'><tbody>");
-                    bufferedPw.print(
-                            "<tr><th>Entity ID</th><th>Digest/Priority</th><th>URL (Version)</th><th>State</th><th>Error</th></tr>");
-                    rt = first.getType();
+        final SnapshotDictionary dictionary = snapshot.getDictionary();
+        final TypeBuckets<ResourceGroup> buckets = select(snapshot.getInstalledByType(), dictionary, type);
+        boolean empty = true;
+        for (int i = 0; i < buckets.size(); i++) {
+            final int code = buckets.getCode(i);
+            final BiFunction<Resource, String, String> renderer =
+                    (resource, alias) -> renderProcessedRow(dictionary, code, resource, alias);
+            boolean open = false;
+            for (final ResourceGroup group : buckets.get(code)) {
+                if (!budget.acquireRow()) {
+                    break;
                 }
-                bufferedPw.print("<tr><td>");
-                bufferedPw.print(escapeXml(getEntityId(first, group.getAlias())));
-                bufferedPw.print("</td><td>");
-                bufferedPw.print(escapeXml(getInfo(first)));
-                bufferedPw.print("</td><td>");
-                bufferedPw.print(escapeXml(getURL(first)));
-                bufferedPw.print("</td><td>");
-                bufferedPw.print(escapeXml(getState(first)));
-                if (first.getState() == ResourceState.INSTALLED) {
-                    final long lastChange = first.getLastChange();
-                    if (lastChange > 0) {
-                        bufferedPw.print("<br/>");
-                        bufferedPw.print(formatDate(lastChange));
-                    }
-                }
-                bufferedPw.print("</td><td>");
-                bufferedPw.print(escapeXml(getError(first)));
-                bufferedPw.print("</td></tr>");
-                if (first.getAttribute(TaskResource.ATTR_INSTALL_EXCLUDED) != null) {
-                    bufferedPw.printf(
-                            "<tr><td></td><td colspan='2'>%s</td><td></td><td></td></tr>",
-                            escapeXml(first.getAttribute(TaskResource.ATTR_INSTALL_EXCLUDED)
-                                    .toString()));
-                }
-                if (first.getAttribute(TaskResource.ATTR_INSTALL_INFO) != null) {
-                    bufferedPw.printf(
-                            "<tr><td></td><td colspan='2'>%s</td><td></td><td></td></tr>",
-                            escapeXml(first.getAttribute(TaskResource.ATTR_INSTALL_INFO)
-                                    .toString()));
+                if (!open) {
+                    renderTableStart(
+                            pw,
+                            bufferedPw,
+                            SECTION_PROCESSED,
+                            "Processed Resources",
+                            dictionary.getLabel(code),
+                            "<tr><th>Entity ID</th><th>Digest/Priority</th><th>URL (Version)</th><th>State</th><th>Error</th></tr>");
+                    open = true;
                 }
-                while (iter.hasNext()) {
-                    final Resource resource = iter.next();
-                    bufferedPw.printf(
-                            "<tr><td></td><td>%s</td><td>%s</td><td>%s</td><td>%s</td></tr>",
-                            escapeXml(getInfo(resource)),
-                            escapeXml(getURL(resource)),
-                            escapeXml(resource.getState().toString()),
-                            escapeXml(getError(resource)));
+                final List<Resource> resources = group.getResources();
+                final Resource first = resources.get(0);
+                bufferedPw.print(getRow(SECTION_PROCESSED, first, group.getAlias(), renderer));
+                // alternates are only loaded on demand
+                final int alternates = resources.size() - 1;
+                if (alternates > 0) {
+                    bufferedPw.print(
+                            "<tr class='alternates'><td></td><td colspan='4'><a class='alternates-toggle' href='");
+                    bufferedPw.print(escapeXml(pluginRoot + GROUP_DETAIL_SUFFIX + "?id="
+                            + URLEncoder.encode(first.getEntityId(), StandardCharsets.UTF_8)));
+                    bufferedPw.print("'>");
+                    bufferedPw.print(alternates);
+                    bufferedPw.print(alternates == 1 ? " alternate" : " alternates");
+                    bufferedPw.print("</a></td></tr>");
                 }
             }
+            if (open) {
+                bufferedPw.println("</tbody></table>");
+                empty = false;
+            }
+            if (budget.isExhausted()) {
+                break;
+            }
         }
-        if (rt != null) {
-            bufferedPw.println("</tbody></table>");
-        } else {
+        if (empty) {
             pw.println("<li>none</li>");
         }
 
         pw.println("</ul></li>");
+    }
+
+    /**
+     * Get the buckets to render, all of them or only the one of the requested type.
+     */
+    private static <T> TypeBuckets<T> select(
+            final TypeBuckets<T> buckets, final SnapshotDictionary dictionary, final String type) {
+        return type != null ? buckets.select(dictionary.getCode(type)) : buckets;
+    }
+
+    /**
+     * Render the navigation entry and the header of the table of a type within a section.
+     */
+    private void renderTableStart(
+            final PrintWriter pw,
+            final PrintWriter bufferedPw,
+            final String section,
+            final String title,
+            final String label,
+            final String columns) {
+        final String anchor = section + "-" + escapeXml(label);
+        pw.println("<li><a href='#" + anchor + "'>" + escapeXml(label) + "</a></li>");
+
+        bufferedPw.println(
+                "<div id='" + anchor + "' class='ui-widget-header ui-corner-top buttonGroup' style='height: 15px;'>");
+        bufferedPw.print("<span style='float: left; margin-left: 1em;'>");
+        bufferedPw.print(title);
+        bufferedPw.print(" - ");
+        bufferedPw.print(label);
+        bufferedPw.print("</span>");
+        bufferedPw.println("</div>");
+        bufferedPw.println("<table class='nicetable'><tbody>");
+        bufferedPw.print(columns);
+    }
+
+    /**
+     * Get the rendered row of a group, from the cache if the resource is unchanged.
+     */
+    private String getRow(
+            final String section,
+            final Resource resource,
+            final String alias,
+            final BiFunction<Resource, String, String> renderer) {
+        final RowFragmentCache cache = this.rowCache;
+        if (cache == null) {
+            return renderer.apply(resource, alias);
+        }
+        final RowFragmentCache.RowVersion version = RowFragmentCache.RowVersion.of(resource, alias);
+        String fragment = cache.get(section, resource.getEntityId(), version);
+        if (fragment == null) {
+            fragment = renderer.apply(resource, alias);
+            cache.put(section, resource.getEntityId(), version, fragment);
+        }
+        return fragment;
+    }
+
+    private String renderActiveRow(
+            final SnapshotDictionary dictionary, final int code, final Resource toActivate, final String alias) {
+        final StringBuilder b = new StringBuilder(256);
+        b.append("<tr><td>");
+        appendEntityId(b, dictionary, code, toActivate, alias);
+        return ACTIVE_ROW
+                .append(
+                        b,
+                        getInfo(toActivate),
+                        getURL(toActivate),
+                        toActivate.getState().toString(),
+                        getError(toActivate))
+                .toString();
+    }
+
+    private String renderProcessedRow(
+            final SnapshotDictionary dictionary, final int code, final Resource first, final String alias) {
+        final StringBuilder b = new StringBuilder(256);
+        b.append("<tr><td>");
+        appendEntityId(b, dictionary, code, first, alias);
+        b.append("</td><td>");
+        escapeXml(b, getInfo(first));
+        b.append("</td><td>");
+        escapeXml(b, getURL(first));
+        b.append("</td><td>");
+        escapeXml(b, getState(first));
+        if (first.getState() == ResourceState.INSTALLED) {
+            final long lastChange = first.getLastChange();
+            if (lastChange > 0) {
+                b.append("<br/>");
+                b.append(formatDate(lastChange));
+            }
+        }
+        b.append("</td><td>");
+        escapeXml(b, getError(first));
+        b.append("</td></tr>");
+        final Object excluded = first.getAttribute(TaskResource.ATTR_INSTALL_EXCLUDED);
+        if (excluded != null) {
+            ATTRIBUTE_ROW.append(b, excluded.toString());
+        }
+        final Object info = first.getAttribute(TaskResource.ATTR_INSTALL_INFO);
+        if (info != null) {
+            ATTRIBUTE_ROW.append(b, info.toString());
+        }
+        return b.toString();
+    }
+
+    private void renderUntransformedResources(
+            final PrintWriter pw,
+            final PrintWriter bufferedPw,
+            final InstallationSnapshot snapshot,
+            final String type,
+            final RenderBudget budget) {
         pw.println("<li>Untransformed Resources");
         pw.println("<ul>");
 
-        rt = null;
-        for (final RegisteredResource registeredResource : state.getUntransformedResources()) {
-            if (!registeredResource.getType().equals(rt)) {
-                if (rt != null) {
-                    bufferedPw.println("</tbody></table>");
+        final SnapshotDictionary dictionary = snapshot.getDictionary();
+        boolean empty = true;
+        final TypeBuckets<RegisteredResource> buckets = select(snapshot.getUntransformedByType(), dictionary, type);
+        for (int i = 0; i < buckets.size(); i++) {
+            final int code = buckets.getCode(i);
+            boolean open = false;
+            for (final RegisteredResource registeredResource : buckets.get(code)) {
+                if (!budget.acquireRow()) {
+                    break;
                 }
-                String anchor = "untransformed-" + escapeXml(getType(registeredResource));
-                pw.println("<li><a href='#" + anchor + "'>" + escapeXml(getType(registeredResource)) + "</a></li>");
-
-                bufferedPw.println("<div id='" + anchor
-                        + "' class='ui-widget-header ui-corner-top buttonGroup' style='height: 15px;'>");
-                bufferedPw.printf(
-                        "<span style='float: left; margin-left: 1em;'>Untransformed Resources - %s</span>",
-                        getType(registeredResource));
-                bufferedPw.println("</div>");
-                bufferedPw.println("<table class='nicetable'><tbody>");
-                bufferedPw.printf("<tr><th>Digest/Priority</th><th>URL</th></tr>");
-
-                rt = registeredResource.getType();
-            }
-            bufferedPw.printf(
-                    "<tr><td>%s</td><td>%s</td></tr>",
-                    escapeXml(getInfo(registeredResource)), escapeXml(registeredResource.getURL()));
-        }
-        if (rt != null) {
-            bufferedPw.println("</tbody></table>");
-        } else {
+                if (!open) {
+                    renderTableStart(
+                            pw,
+                            bufferedPw,
+                            SECTION_UNTRANSFORMED,
+                            "Untransformed Resources",
+                            dictionary.getLabel(code),
+                            "<tr><th>Digest/Priority</th><th>URL</th></tr>");
+                    open = true;
+                }
+                UNTRANSFORMED_ROW.print(bufferedPw, getInfo(registeredResource), registeredResource.getURL());
+            }
+            if (open) {
+                bufferedPw.println("</tbody></table>");
+                empty = false;
+            }
+            if (budget.isExhausted()) {
+                break;
+            }
+        }
+        if (empty) {
             pw.println("<li>none</li>");
         }
 
         pw.println("</ul></li>");
+    }
+
+    /**
+     * Render the number of resources per section and type, linking to the filtered pages,
+     * instead of the resources themselves.
+     */
+    private void renderSummary(
+            final PrintWriter pw,
+            final InstallationSnapshot snapshot,
+            final String pluginRoot,
+            final RenderBudget budget) {
+        pw.print("<p class='statline'>");
+        pw.print(snapshot.getResourceCount());
+        pw.print(" resources exceed the render budget of ");
+        pw.print(budget.getMaxRows() > 0 ? budget.getMaxRows() + " rows" : "the configured size");
+        pw.print(", select a section and type to show its resources (summary shown ");
+        pw.print(this.fallbackCount.get());
+        pw.println(" times).</p>");
+        pw.println("<ul class=list>");
+        final SnapshotDictionary dictionary = snapshot.getDictionary();
+        renderSummarySection(
+                pw, "Active Resources", SECTION_ACTIVE, snapshot.getActiveByType(), dictionary, pluginRoot);
+        renderSummarySection(
+                pw, "Processed Resources", SECTION_PROCESSED, snapshot.getInstalledByType(), dictionary, pluginRoot);
+        renderSummarySection(
+                pw,
+                "Untransformed Resources",
+                SECTION_UNTRANSFORMED,
+                snapshot.getUntransformedByType(),
+                dictionary,
+                pluginRoot);
         pw.println("</ul>");
-        pw.print(bufferedWriter.toString());
+    }
+
+    private void renderSummarySection(
+            final PrintWriter pw,
+            final String title,
+            final String section,
+            final TypeBuckets<?> buckets,
+            final SnapshotDictionary dictionary,
+            final String pluginRoot) {
+        pw.println("<li>" + title);
+        pw.println("<ul>");
+        for (int i = 0; i < buckets.size(); i++) {
+            final int code = buckets.getCode(i);
+            final String href = pluginRoot + "?" + PARAM_SECTION + "=" + section + "&" + PARAM_TYPE + "="
+                    + URLEncoder.encode(dictionary.getType(code), StandardCharsets.UTF_8);
+            pw.println("<li><a href='" + escapeXml(href) + "'>" + escapeXml(dictionary.getLabel(code)) + "</a> ("
+                    + buckets.get(code).size() + ")</li>");
+        }
+        if (buckets.isEmpty()) {
+            pw.println("<li>none</li>");
+        }
+        pw.println("</ul></li>");
+    }
+
+    /**
+     * Write a response which is not embedded in the web console page, asynchronously
+     * if supported by the container.
+     */
+    private void write(final ServletRequest req, final ServletResponse res, final AsyncResponseWriter.Content content)
+            throws IOException {
+        final AsyncResponseWriter writer = this.asyncWriter;
+        if (writer != null && req.isAsyncSupported()) {
+            writer.write(req, res, content);
+        } else {
+            final PrintWriter pw = res.getWriter();
+            content.render(pw);
+            pw.flush();
+        }
+    }
+
+    /**
+     * Write the resources matching a query as JSON.
+     */
+    private void serviceSearch(final ServletRequest req, final ServletResponse res) throws IOException {
+        final String query = req.getParameter(PARAM_QUERY);
+        final boolean substring = MODE_SUBSTRING.equals(req.getParameter(PARAM_MODE));
+        final int limit = getLimit(req, DEFAULT_SEARCH_LIMIT);
+        final InstallationSnapshot snapshot = this.getSnapshot();
+        final SearchIndex index = snapshot.getSearchIndex();
+        final SearchIndex.Result result =
+                substring ? index.findSubstring(query, limit) : index.findPrefix(query, limit);
+        res.setContentType("application/json");
+        res.setCharacterEncoding("UTF-8");
+        this.write(req, res, pw -> renderSearchResult(pw, snapshot.getDictionary(), query, substring, result));
+    }
+
+    private void renderSearchResult(
+            final PrintWriter pw,
+            final SnapshotDictionary dictionary,
+            final String query,
+            final boolean substring,
+            final SearchIndex.Result result) {
+        pw.print("{\"query\":");
+        pw.print(quoteJson(query));
+        pw.print(",\"mode\":");
+        pw.print(quoteJson(substring ? MODE_SUBSTRING : MODE_PREFIX));
+        pw.print(",\"truncated\":");
+        pw.print(result.truncated());
+        pw.print(",\"results\":[");
+        boolean first = true;
+        for (final SearchIndex.Document document : result.documents()) {
+            if (!first) {
+                pw.print(',');
+            }
+            first = false;
+            final RegisteredResource resource = document.resource();
+            final int code = dictionary.getCode(resource.getType());
+            pw.print("{\"section\":");
+            pw.print(quoteJson(getSectionTitle(document.section())));
+            pw.print(",\"type\":");
+            pw.print(quoteJson(code != -1 ? dictionary.getLabel(code) : resource.getType()));
+            pw.print(",\"entityId\":");
+            pw.print(quoteJson(resource.getEntityId()));
+            pw.print(",\"alias\":");
+            pw.print(quoteJson(document.alias()));
+            pw.print(",\"url\":");
+            pw.print(quoteJson(resource.getURL()));
+            pw.print(",\"state\":");
+            pw.print(quoteJson(resource instanceof Resource ? getState((Resource) resource) : null));
+            pw.print('}');
+        }
+        pw.print("]}");
+    }
+
+    /**
+     * Write the alternates of a single group as JSON.
+     */
+    private void serviceGroupDetail(final ServletRequest req, final ServletResponse res) throws IOException {
+        final String entityId = req.getParameter("id");
+        final ResourceGroup group = entityId != null ? this.getSnapshot().getGroup(entityId) : null;
+        if (group == null) {
+            if (res instanceof HttpServletResponse) {
+                ((HttpServletResponse) res).sendError(HttpServletResponse.SC_NOT_FOUND);
+            }
+            return;
+        }
+        res.setContentType("application/json");
+        res.setCharacterEncoding("UTF-8");
+        this.write(req, res, pw -> renderGroupDetail(pw, entityId, group));
+    }
+
+    private void renderGroupDetail(final PrintWriter pw, final String entityId, final ResourceGroup group) {
+        final List<Resource> resources = group.getResources();
+        pw.print("{\"id\":");
+        pw.print(quoteJson(entityId));
+        pw.print(",\"alternates\":[");
+        for (int i = 1; i < resources.size(); i++) {
+            final Resource resource = resources.get(i);
+            if (i > 1) {
+                pw.print(',');
+            }
+            pw.print("{\"info\":");
+            pw.print(quoteJson(getInfo(resource)));
+            pw.print(",\"url\":");
+            pw.print(quoteJson(getURL(resource)));
+            pw.print(",\"state\":");
+            pw.print(quoteJson(resource.getState().toString()));
+            pw.print(",\"error\":");
+            pw.print(quoteJson(getError(resource)));
+            pw.print('}');
+        }
+        pw.print("]}");
+    }
+
+    /**
+     * Write the entity ids of the resources having a reason as JSON, at most the maximum number of rows.
+     */
+    private void serviceReason(final ServletRequest req, final ServletResponse res) throws IOException {
+        final ReasonAggregation.Reason reason = getReason(req.getParameter(PARAM_KIND), req.getParameter(PARAM_TEXT));
+        if (reason == null) {
+            if (res instanceof HttpServletResponse) {
+                ((HttpServletResponse) res).sendError(HttpServletResponse.SC_NOT_FOUND);
+            }
+            return;
+        }
+        final int limit = getLimit(req, this.maxRows > 0 ? this.maxRows : Integer.MAX_VALUE);
+        res.setContentType("application/json");
+        res.setCharacterEncoding("UTF-8");
+        this.write(req, res, pw -> renderReason(pw, reason, limit));
+    }
+
+    private ReasonAggregation.Reason getReason(final String kind, final String text) {
+        if (kind == null || text == null) {
+            return null;
+        }
+        for (final ReasonAggregation.Kind k : ReasonAggregation.Kind.values()) {
+            if (k.name().equals(kind)) {
+                return this.getSnapshot().getReasonAggregation().getReason(k, text);
+            }
+        }
+        return null;
+    }
+
+    private void renderReason(final PrintWriter pw, final ReasonAggregation.Reason reason, final int limit) {
+        final List<String> entityIds = reason.getEntityIds();
+        final int count = Math.min(limit, entityIds.size());
+        pw.print("{\"kind\":");
+        pw.print(quoteJson(reason.getKind().getTitle()));
+        pw.print(",\"text\":");
+        pw.print(quoteJson(reason.getText()));
+        pw.print(",\"truncated\":");
+        pw.print(count < entityIds.size());
+        pw.print(",\"entityIds\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                pw.print(',');
+            }
+            pw.print(quoteJson(entityIds.get(i)));
+        }
+        pw.print("]}");
+    }
+
+    /**
+     * Method for the configuration printer, attaching the state as JSON records to the zip file.
+     * The attachments are rendered from the current snapshot while they are added to the zip file.
+     */
+    public URL[] getAttachments(final String mode) {
+        if (!"zip".equals(mode)) {
+            return null;
+        }
+        final InstallationSnapshot snapshot = this.getSnapshot();
+        return new URL[] {
+            StreamedAttachment.create(
+                    SUMMARY_ATTACHMENT,
+                    () -> new LineInputStream(
+                            List.of(renderDumpSummary(snapshot)).iterator())),
+            StreamedAttachment.create(
+                    STATE_ATTACHMENT,
+                    () -> new LineInputStream(new StateDump(snapshot.getState(), this::renderDumpRecord)))
+        };
+    }
+
+    /**
+     * Render a resource as a single line JSON object.
+     */
+    private String renderDumpRecord(
+            final String section, final RegisteredResource resource, final String alias, final int index) {
+        final StringBuilder b = new StringBuilder(512);
+        b.append("{\"section\":").append(quoteJson(section));
+        b.append(",\"type\":").append(quoteJson(resource.getType()));
+        b.append(",\"entityId\":").append(quoteJson(resource.getEntityId()));
+        b.append(",\"alias\":").append(quoteJson(alias));
+        b.append(",\"index\":").append(index);
+        b.append(",\"url\":").append(quoteJson(resource.getURL()));
+        b.append(",\"digest\":").append(quoteJson(resource.getDigest()));
+        b.append(",\"priority\":").append(resource.getPriority());
+        if (resource instanceof Resource) {
+            final Resource r = (Resource) resource;
+            b.append(",\"state\":").append(quoteJson(Objects.toString(r.getState(), null)));
+            b.append(",\"version\":").append(quoteJson(Objects.toString(r.getVersion(), null)));
+            b.append(",\"lastChange\":").append(r.getLastChange());
+            b.append(",\"error\":").append(quoteJson(r.getError()));
+            b.append(",\"excluded\":")
+                    .append(quoteJson(Objects.toString(r.getAttribute(TaskResource.ATTR_INSTALL_EXCLUDED), null)));
+            b.append(",\"info\":")
+                    .append(quoteJson(Objects.toString(r.getAttribute(TaskResource.ATTR_INSTALL_INFO), null)));
+        }
+        return b.append('}').toString();
+    }
+
+    /**
+     * Render the summary statistics of the snapshot as JSON.
+     */
+    private String renderDumpSummary(final InstallationSnapshot snapshot) {
+        final StringBuilder b = new StringBuilder(1024);
+        b.append("{\"resources\":").append(snapshot.getResourceCount());
+        b.append(",\"sections\":{");
+        final SnapshotDictionary dictionary = snapshot.getDictionary();
+        appendTypeCounts(b, SECTION_ACTIVE, snapshot.getActiveByType(), dictionary);
+        b.append(',');
+        appendTypeCounts(b, SECTION_PROCESSED, snapshot.getInstalledByType(), dictionary);
+        b.append(',');
+        appendTypeCounts(b, SECTION_UNTRANSFORMED, snapshot.getUntransformedByType(), dictionary);
+        b.append("},\"states\":{");
+        final Map<ResourceState, Integer> states = new EnumMap<>(ResourceState.class);
+        countStates(states, snapshot.getActiveByType());
+        countStates(states, snapshot.getInstalledByType());
+        boolean first = true;
+        for (final Map.Entry<ResourceState, Integer> entry : states.entrySet()) {
+            if (!first) {
+                b.append(',');
+            }
+            first = false;
+            b.append(quoteJson(entry.getKey().name())).append(':').append(entry.getValue());
+        }
+        b.append("},\"duplicateDigests\":")
+                .append(snapshot.getDigestIndex().getDuplicates().size());
+        b.append(",\"priorityConflicts\":")
+                .append(snapshot.getPriorityAnalysis(this.priorityTolerance)
+                        .getConflicts()
+                        .size());
+        b.append(",\"distinctReasons\":")
+                .append(snapshot.getReasonAggregation().getReasons().size());
+        b.append(",\"renderFallbacks\":").append(this.fallbackCount.get());
+        return b.append('}').toString();
+    }
+
+    private void appendTypeCounts(
+            final StringBuilder b,
+            final String section,
+            final TypeBuckets<?> buckets,
+            final SnapshotDictionary dictionary) {
+        b.append(quoteJson(section)).append(":{");
+        for (int i = 0; i < buckets.size(); i++) {
+            final int code = buckets.getCode(i);
+            if (i > 0) {
+                b.append(',');
+            }
+            b.append(quoteJson(dictionary.getType(code)))
+                    .append(':')
+                    .append(buckets.get(code).size());
+        }
+        b.append('}');
+    }
+
+    /**
+     * Count the states of the first resource of each group.
+     */
+    private static void countStates(
+            final Map<ResourceState, Integer> states, final TypeBuckets<ResourceGroup> groupsByType) {
+        for (int i = 0; i < groupsByType.size(); i++) {
+            for (final ResourceGroup group : groupsByType.get(groupsByType.getCode(i))) {
+                final ResourceState state = group.getResources().get(0).getState();
+                if (state != null) {
+                    states.merge(state, 1, Integer::sum);
+                }
+            }
+        }
     }
 
     /**
      * Method for the configuration printer.
      */
-    public void printConfiguration(final PrintWriter pw, final String mode) {
+    public void printConfiguration(final PrintWriter printWriter, final String mode) {
         if (!"zip".equals(mode) && !"txt".equals(mode)) {
             return;
         }
+        final CountingWriter counter = new CountingWriter(printWriter);
+        final PrintWriter pw = new PrintWriter(counter);
         pw.println("Apache Sling OSGi Installer");
         pw.println("===========================");
-        final InstallationState state = this.installer.getInstallationState();
+        final InstallationSnapshot snapshot = this.getSnapshot();
+        final RenderBudget budget = new RenderBudget(this.maxRows, this.maxSize, counter::getCount);
+        if (!budget.fits(snapshot.getResourceCount())) {
+            this.fallbackCount.incrementAndGet();
+            printSummary(pw, snapshot, budget);
+            pw.flush();
+            return;
+        }
+        final SnapshotDictionary dictionary = snapshot.getDictionary();
         pw.println("Active Resources");
         pw.println("----------------");
-        String rt = null;
-        for (final ResourceGroup group : state.getActiveResources()) {
-            final Resource toActivate = group.getResources().get(0);
-            if (!toActivate.getType().equals(rt)) {
-                pw.printf("%s:%n", getType(toActivate));
-                rt = toActivate.getType();
+        final TypeBuckets<ResourceGroup> active = snapshot.getActiveByType();
+        for (int i = 0; i < active.size(); i++) {
+            if (budget.isExhausted()) {
+                break;
+            }
+            final int code = active.getCode(i);
+            boolean first = true;
+            for (final ResourceGroup group : active.get(code)) {
+                if (!budget.acquireRow()) {
+                    break;
+                }
+                if (first) {
+                    pw.printf("%s:%n", dictionary.getLabel(code));
+                    first = false;
+                }
+                final Resource toActivate = group.getResources().get(0);
+                pw.print("- ");
+                printEntityId(pw, dictionary, code, toActivate, group.getAlias());
+                RESOURCE_LINE.print(
+                        pw,
+                        getInfo(toActivate),
+                        getURL(toActivate),
+                        toActivate.getState().toString(),
+                        getError(toActivate));
             }
-            pw.printf(
-                    "- %s: %s, %s, %s, %s%n",
-                    getEntityId(toActivate, group.getAlias()),
-                    getInfo(toActivate),
-                    getURL(toActivate),
-                    toActivate.getState(),
-                    getError(toActivate));
         }
         pw.println();
 
         pw.println("Processed Resources");
         pw.println("-------------------");
-        rt = null;
-        for (final ResourceGroup group : state.getInstalledResources()) {
-            final Collection<Resource> resources = group.getResources();
-            if (!resources.isEmpty()) {
-                final Iterator<Resource> iter = resources.iterator();
-                final Resource first = iter.next();
-                if (!first.getType().equals(rt)) {
-                    pw.printf("%s:%n", getType(first));
-                    rt = first.getType();
+        final TypeBuckets<ResourceGroup> installed = snapshot.getInstalledByType();
+        for (int i = 0; i < installed.size(); i++) {
+            if (budget.isExhausted()) {
+                break;
+            }
+            final int code = installed.getCode(i);
+            boolean firstRow = true;
+            for (final ResourceGroup group : installed.get(code)) {
+                if (!budget.acquireRow()) {
+                    break;
                 }
-                pw.printf(
-                        "* %s: %s, %s, %s, %s%n",
-                        getEntityId(first, group.getAlias()),
-                        getInfo(first),
-                        getURL(first),
-                        getState(first),
-                        getError(first));
-                if (first.getAttribute(TaskResource.ATTR_INSTALL_EXCLUDED) != null) {
-                    pw.printf("  : %s", first.getAttribute(TaskResource.ATTR_INSTALL_EXCLUDED));
+                if (firstRow) {
+                    pw.printf("%s:%n", dictionary.getLabel(code));
+                    firstRow = false;
                 }
-                if (first.getAttribute(TaskResource.ATTR_INSTALL_INFO) != null) {
-                    pw.printf("  : %s", first.getAttribute(TaskResource.ATTR_INSTALL_INFO));
+                final Iterator<Resource> iter = group.getResources().iterator();
+                final Resource first = iter.next();
+                pw.print("* ");
+                printEntityId(pw, dictionary, code, first, group.getAlias());
+                RESOURCE_LINE.print(pw, getInfo(first), getURL(first), getState(first), getError(first));
+                final Object excluded = first.getAttribute(TaskResource.ATTR_INSTALL_EXCLUDED);
+                if (excluded != null) {
+                    ATTRIBUTE_LINE.print(pw, excluded.toString());
                 }
-                while (iter.hasNext()) {
+                final Object info = first.getAttribute(TaskResource.ATTR_INSTALL_INFO);
+                if (info != null) {
+                    ATTRIBUTE_LINE.print(pw, info.toString());
+                }
+                // a group may have many alternates, each of them is a row of the budget
+                while (iter.hasNext() && budget.acquireRow()) {
                     final Resource resource = iter.next();
-                    pw.printf(
-                            "  - %s, %s, %s, %s%n",
-                            getInfo(resource), getURL(resource), resource.getState(), getError(resource));
+                    ALTERNATE_LINE.print(
+                            pw,
+                            getInfo(resource),
+                            getURL(resource),
+                            resource.getState().toString(),
+                            getError(resource));
                 }
             }
         }
@@ -360,14 +1508,60 @@ public class OsgiInstallerWebConsolePlugin extends AbstractWebConsolePlugin {
 
         pw.println("Untransformed Resources");
         pw.println("-----------------------");
-        rt = null;
-        for (final RegisteredResource registeredResource : state.getUntransformedResources()) {
-            if (!registeredResource.getType().equals(rt)) {
-                pw.printf("%s:%n", getType(registeredResource));
-                rt = registeredResource.getType();
+        final TypeBuckets<RegisteredResource> untransformed = snapshot.getUntransformedByType();
+        for (int i = 0; i < untransformed.size(); i++) {
+            if (budget.isExhausted()) {
+                break;
+            }
+            final int code = untransformed.getCode(i);
+            boolean first = true;
+            for (final RegisteredResource registeredResource : untransformed.get(code)) {
+                if (!budget.acquireRow()) {
+                    break;
+                }
+                if (first) {
+                    pw.printf("%s:%n", dictionary.getLabel(code));
+                    first = false;
+                }
+                UNTRANSFORMED_LINE.print(pw, getInfo(registeredResource), registeredResource.getURL());
             }
-            pw.printf("- %s, %s%n", getInfo(registeredResource), registeredResource.getURL());
         }
+        if (budget.isExhausted()) {
+            this.fallbackCount.incrementAndGet();
+            pw.println();
+            pw.printf(
+                    "Output truncated after %d resources, the render budget has been exceeded %d times.%n",
+                    budget.getRows(), this.fallbackCount.get());
+        }
+        pw.flush();
+    }
+
+    /**
+     * Print the number of resources per section and type instead of the resources themselves.
+     */
+    private void printSummary(final PrintWriter pw, final InstallationSnapshot snapshot, final RenderBudget budget) {
+        pw.printf(
+                "%d resources exceed the render budget of %d rows (summary printed %d times).%n",
+                snapshot.getResourceCount(), budget.getMaxRows(), this.fallbackCount.get());
+        pw.println();
+        final SnapshotDictionary dictionary = snapshot.getDictionary();
+        printSummarySection(pw, "Active Resources", snapshot.getActiveByType(), dictionary);
+        printSummarySection(pw, "Processed Resources", snapshot.getInstalledByType(), dictionary);
+        printSummarySection(pw, "Untransformed Resources", snapshot.getUntransformedByType(), dictionary);
+    }
+
+    private void printSummarySection(
+            final PrintWriter pw,
+            final String title,
+            final TypeBuckets<?> buckets,
+            final SnapshotDictionary dictionary) {
+        pw.println(title);
+        pw.println("-".repeat(title.length()));
+        for (int i = 0; i < buckets.size(); i++) {
+            final int code = buckets.getCode(i);
+            pw.printf("%s: %d%n", dictionary.getLabel(code), buckets.get(code).size());
+        }
+        pw.println();
     }
 
     @Override
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.console;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import org.apache.sling.installer.api.info.InstallationState;
+import org.apache.sling.installer.api.info.Resource;
+import org.apache.sling.installer.api.info.ResourceGroup;
+import org.osgi.framework.Version;
+
+/**
+ * Analysis of the priorities within the active and processed groups, comparing
+ * the winning (first) resource of each group with its alternates. Each alternate
+ * is reported at most once, with the first matching kind in order of declaration.
+ */
+final class PriorityAnalysis {
+
+    enum Kind {
+        /** The winner has a lower priority than an alternate with a different digest. */
+        LOWER_PRIORITY_WINNER("Winner with lower priority"),
+        /** An alternate with a different digest has the same or nearly the same priority as the winner. */
+        PRIORITY_TIE("Priority tie"),
+        /** An alternate has a higher version than the winner. */
+        SHADOWED_VERSION("Shadowed higher version");
+
+        private final String title;
+
+        Kind(final String title) {
+            this.title = title;
+        }
+
+        String getTitle() {
+            return this.title;
+        }
+    }
+
+    record Conflict(Kind kind, String section, Resource winner, Resource alternate) {}
+
+    private final int tolerance;
+
+    private final List<Conflict> conflicts = new ArrayList<>();
+
+    /**
+     * @param state The installation state
+     * @param tolerance The maximum difference of priorities still considered a tie
+     */
+    PriorityAnalysis(final InstallationState state, final int tolerance) {
+        this.tolerance = tolerance;
+        analyze(OsgiInstallerWebConsolePlugin.SECTION_ACTIVE, state.getActiveResources());
+        analyze(OsgiInstallerWebConsolePlugin.SECTION_PROCESSED, state.getInstalledResources());
+    }
+
+    private void analyze(final String section, final List<ResourceGroup> groups) {
+        for (final ResourceGroup group : groups) {
+            final List<Resource> resources = group.getResources();
+            if (resources.size() < 2) {
+                continue;
+            }
+            final Resource winner = resources.get(0);
+            final int priority = winner.getPriority();
+            final Version version = winner.getVersion();
+            for (int i = 1; i < resources.size(); i++) {
+                final Resource alternate = resources.get(i);
+                // the same artifact from another URL cannot cause alternating installations
+                final boolean differs = !Objects.equals(winner.getDigest(), alternate.getDigest());
+                final Kind kind;
+                if (differs && alternate.getPriority() > priority) {
+                    kind = Kind.LOWER_PRIORITY_WINNER;
+                } else if (differs && Math.abs((long) priority - alternate.getPriority()) <= this.tolerance) {
+                    kind = Kind.PRIORITY_TIE;
+                } else if (version != null
+                        && alternate.getVersion() != null
+                        && alternate.getVersion().compareTo(version) > 0) {
+                    kind = Kind.SHADOWED_VERSION;
+                } else {
+                    continue;
+                }
+                this.conflicts.add(new Conflict(kind, section, winner, alternate));
+            }
+        }
+    }
+
+    int getTolerance() {
+        return this.tolerance;
+    }
+
+    /**
+     * Get the conflicts, in order of the groups.
+     */
+    List<Conflict> getConflicts() {
+        return Collections.unmodifiableList(this.conflicts);
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.console;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.sling.installer.api.info.InstallationState;
+import org.apache.sling.installer.api.info.Resource;
+import org.apache.sling.installer.api.info.ResourceGroup;
+import org.apache.sling.installer.api.tasks.TaskResource;
+
+/**
+ * Aggregation of the exclusion reasons and install infos of the first resource of each
+ * active and processed group, counting the resources sharing the same text.
+ */
+final class ReasonAggregation {
+
+    enum Kind {
+        EXCLUDED("Excluded", TaskResource.ATTR_INSTALL_EXCLUDED),
+        INFO("Info", TaskResource.ATTR_INSTALL_INFO);
+
+        private final String title;
+
+        private final String attribute;
+
+        Kind(final String title, final String attribute) {
+            this.title = title;
+            this.attribute = attribute;
+        }
+
+        String getTitle() {
+            return this.title;
+        }
+    }
+
+    /**
+     * A distinct text of an attribute together with the entity ids of the resources having it.
+     */
+    static final class Reason {
+
+        private final Kind kind;
+
+        private final String text;
+
+        private final List<String> entityIds = new ArrayList<>();
+
+        Reason(final Kind kind, final String text) {
+            this.kind = kind;
+            this.text = text;
+        }
+
+        Kind getKind() {
+            return this.kind;
+        }
+
+        String getText() {
+            return this.text;
+        }
+
+        int getCount() {
+            return this.entityIds.size();
+        }
+
+        /**
+         * Get the entity ids, in order of the groups.
+         */
+        List<String> getEntityIds() {
+            return Collections.unmodifiableList(this.entityIds);
+        }
+    }
+
+    private record Key(Kind kind, String text) {}
+
+    private final List<Reason> reasons;
+
+    /** The reasons by kind and text. */
+    private final Map<Key, Reason> index = new HashMap<>();
+
+    private int resourceCount;
+
+    ReasonAggregation(final InstallationState state) {
+        // each distinct text is kept once, the resources with an equal text only add their entity id
+        final List<Reason> result = new ArrayList<>();
+        add(this.index, result, state.getActiveResources());
+        add(this.index, result, state.getInstalledResources());
+        // most frequent first, equal counts in order of their first appearance
+        result.sort((r1, r2) -> Integer.compare(r2.getCount(), r1.getCount()));
+        this.reasons = Collections.unmodifiableList(result);
+    }
+
+    private void add(final Map<Key, Reason> index, final List<Reason> result, final List<ResourceGroup> groups) {
+        for (final ResourceGroup group : groups) {
+            final List<Resource> resources = group.getResources();
+            if (resources.isEmpty()) {
+                continue;
+            }
+            final Resource first = resources.get(0);
+            boolean counted = false;
+            for (final Kind kind : Kind.values()) {
+                final Object value = first.getAttribute(kind.attribute);
+                if (value == null) {
+                    continue;
+                }
+                final Key key = new Key(kind, value.toString());
+                Reason reason = index.get(key);
+                if (reason == null) {
+                    reason = new Reason(kind, key.text());
+                    index.put(key, reason);
+                    result.add(reason);
+                }
+                reason.entityIds.add(first.getEntityId());
+                if (!counted) {
+                    this.resourceCount++;
+                    counted = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the distinct reasons, the most frequent first.
+     */
+    List<Reason> getReasons() {
+        return this.reasons;
+    }
+
+    /**
+     * Get a reason
+     * @param kind The kind of the reason
+     * @param text The text of the reason
+     * @return The reason or {@code null} if no resource has it
+     */
+    Reason getReason(final Kind kind, final String text) {
+        return this.index.get(new Key(kind, text));
+    }
+
+    /**
+     * Get the number of resources with an exclusion reason or install info.
+     */
+    int getResourceCount() {
+        return this.resourceCount;
+    }
+}
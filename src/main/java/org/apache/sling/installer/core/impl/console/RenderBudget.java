@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.console;
+
+import java.util.function.IntSupplier;
+
+/**
+ * Limits the number of rows and the size of the output of a single render.
+ * A value of {@code 0} or less for a limit disables it.
+ */
+final class RenderBudget {
+
+    private final int maxRows;
+
+    private final int maxSize;
+
+    /** Supplies the number of characters rendered so far. */
+    private final IntSupplier size;
+
+    private int rows;
+
+    private boolean exhausted;
+
+    RenderBudget(final int maxRows, final int maxSize, final IntSupplier size) {
+        this.maxRows = maxRows;
+        this.maxSize = maxSize;
+        this.size = size;
+    }
+
+    int getMaxRows() {
+        return this.maxRows;
+    }
+
+    /**
+     * Check whether the given number of rows can be rendered at all.
+     */
+    boolean fits(final int rowCount) {
+        return this.maxRows <= 0 || rowCount <= this.maxRows;
+    }
+
+    /**
+     * Account for a row which is about to be rendered.
+     * @return {@code true} if the row can be rendered, {@code false} if the budget is exhausted
+     */
+    boolean acquireRow() {
+        if (!this.exhausted) {
+            this.exhausted = (this.maxRows > 0 && this.rows >= this.maxRows)
+                    || (this.maxSize > 0 && this.size.getAsInt() >= this.maxSize);
+            if (!this.exhausted) {
+                this.rows++;
+            }
+        }
+        return !this.exhausted;
+    }
+
+    /**
+     * Check whether rows have been dropped because the budget has been exhausted.
+     */
+    boolean isExhausted() {
+        return this.exhausted;
+    }
+
+    int getRows() {
+        return this.rows;
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.console;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+import org.apache.sling.installer.api.info.Resource;
+import org.apache.sling.installer.api.tasks.ResourceState;
+import org.apache.sling.installer.api.tasks.TaskResource;
+import org.osgi.framework.Version;
+
+/**
+ * Approximately least recently used cache of the rendered rows of resource groups.
+ * <p>
+ * There is at most one fragment per section and entity: a fragment is only
+ * returned if the resource it has been rendered from is unchanged, otherwise
+ * it is replaced by the newly rendered one. Fragments of entities which are
+ * no longer part of the installation state are removed with {@link #retainAll(Predicate)}.
+ * <p>
+ * Rows are looked up by concurrent renders, so neither lookups nor insertions take a lock.
+ * Each entry records the time of its last use from a counter instead of being moved in an
+ * access ordered list. Once the cache exceeds its size, a single thread removes the least
+ * recently used tenth of the entries, while the others continue without waiting.
+ */
+final class RowFragmentCache {
+
+    /**
+     * Everything a rendered row depends on.
+     */
+    record RowVersion(
+            String alias,
+            String url,
+            Version version,
+            String digest,
+            int priority,
+            ResourceState state,
+            long lastChange,
+            String error,
+            String excluded,
+            String info) {
+
+        static RowVersion of(final Resource resource, final String alias) {
+            return new RowVersion(
+                    alias,
+                    resource.getURL(),
+                    resource.getVersion(),
+                    resource.getDigest(),
+                    resource.getPriority(),
+                    resource.getState(),
+                    resource.getLastChange(),
+                    resource.getError(),
+                    Objects.toString(resource.getAttribute(TaskResource.ATTR_INSTALL_EXCLUDED), null),
+                    Objects.toString(resource.getAttribute(TaskResource.ATTR_INSTALL_INFO), null));
+        }
+    }
+
+    private record Key(String section, String entityId) {}
+
+    /** An entry considered for eviction, with the time of its last use when it has been considered. */
+    private record Candidate(Key key, Entry entry, long lastUse) {}
+
+    private static final class Entry {
+
+        final RowVersion version;
+
+        final String fragment;
+
+        /** Value of the clock at the last use. */
+        volatile long lastUse;
+
+        Entry(final RowVersion version, final String fragment, final long lastUse) {
+            this.version = version;
+            this.fragment = fragment;
+            this.lastUse = lastUse;
+        }
+    }
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final ReentrantLock eviction = new ReentrantLock();
+
+    private final int maxEntries;
+
+    /** Number of entries kept by an eviction. */
+    private final int retainedEntries;
+
+    /**
+     * @param maxEntries The maximum number of cached fragments
+     */
+    RowFragmentCache(final int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.retainedEntries = maxEntries - maxEntries / 10;
+    }
+
+    /**
+     * Get the fragment rendered for the entity
+     * @param section The section the row is rendered in
+     * @param entityId The entity id
+     * @param version The current version of the resource
+     * @return The fragment or {@code null} if there is none for this version
+     */
+    String get(final String section, final String entityId, final RowVersion version) {
+        final Entry entry = this.entries.get(new Key(section, entityId));
+        if (entry == null || !entry.version.equals(version)) {
+            return null;
+        }
+        entry.lastUse = this.clock.incrementAndGet();
+        return entry.fragment;
+    }
+
+    void put(final String section, final String entityId, final RowVersion version, final String fragment) {
+        this.entries.put(new Key(section, entityId), new Entry(version, fragment, this.clock.incrementAndGet()));
+        if (this.entries.size() > this.maxEntries) {
+            this.evict();
+        }
+    }
+
+    /**
+     * Remove the least recently used entries, unless another thread is already doing so.
+     * The size is checked again after releasing the lock, so entries inserted by threads
+     * which did not get the lock meanwhile are evicted as well.
+     */
+    private void evict() {
+        while (this.entries.size() > this.maxEntries && this.eviction.tryLock()) {
+            try {
+                // the times of use are captured once, they keep changing while sorting
+                final List<Candidate> candidates = new ArrayList<>(this.entries.size());
+                for (final Map.Entry<Key, Entry> entry : this.entries.entrySet()) {
+                    candidates.add(new Candidate(entry.getKey(), entry.getValue(), entry.getValue().lastUse));
+                }
+                candidates.sort(Comparator.comparingLong(Candidate::lastUse));
+                final int excess = candidates.size() - this.retainedEntries;
+                for (int i = 0; i < excess; i++) {
+                    final Candidate candidate = candidates.get(i);
+                    this.entries.remove(candidate.key(), candidate.entry());
+                }
+            } finally {
+                this.eviction.unlock();
+            }
+        }
+    }
+
+    /**
+     * Remove the fragments of all entities not matching the predicate.
+     */
+    void retainAll(final Predicate<String> entityIds) {
+        this.entries.keySet().removeIf(key -> !entityIds.test(key.entityId()));
+    }
+
+    int size() {
+        return this.entries.size();
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.console;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Precompiled row pattern writing the literal segments and the values directly,
+ * instead of parsing a format string and creating a {@link java.util.Formatter} per row.
+ * <p>
+ * The pattern supports the {@code %s}, {@code %n} and {@code %%} conversions and produces
+ * the same output as {@link String#format(String, Object...)} for string values, including
+ * {@code null} values written as {@code "null"}.
+ */
+final class RowTemplate {
+
+    private final String[] segments;
+
+    private final boolean escapeXml;
+
+    /** Total length of the literal segments. */
+    private final int literalLength;
+
+    private RowTemplate(final String pattern, final boolean escapeXml) {
+        final List<String> parts = new ArrayList<>();
+        final StringBuilder segment = new StringBuilder();
+        for (int i = 0; i < pattern.length(); i++) {
+            final char c = pattern.charAt(i);
+            if (c != '%') {
+                segment.append(c);
+                continue;
+            }
+            final char conversion = ++i < pattern.length() ? pattern.charAt(i) : 0;
+            if (conversion == 's') {
+                parts.add(segment.toString());
+                segment.setLength(0);
+            } else if (conversion == 'n') {
+                segment.append(System.lineSeparator());
+            } else if (conversion == '%') {
+                segment.append('%');
+            } else {
+                throw new IllegalArgumentException("Unsupported conversion at " + (i - 1) + " in " + pattern);
+            }
+        }
+        parts.add(segment.toString());
+        this.segments = parts.toArray(new String[0]);
+        this.escapeXml = escapeXml;
+        int length = 0;
+        for (final String part : this.segments) {
+            length += part.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Create a template for HTML rows, the values are XML escaped.
+     */
+    static RowTemplate html(final String pattern) {
+        return new RowTemplate(pattern, true);
+    }
+
+    /**
+     * Create a template for text rows, the values are written as is.
+     */
+    static RowTemplate text(final String pattern) {
+        return new RowTemplate(pattern, false);
+    }
+
+    /**
+     * Append the row
+     * @param b The builder to append to
+     * @param values The values, one per {@code %s} conversion
+     * @return The builder
+     */
+    StringBuilder append(final StringBuilder b, final String... values) {
+        checkValues(values);
+        b.append(this.segments[0]);
+        for (int i = 0; i < values.length; i++) {
+            if (this.escapeXml) {
+                AbstractWebConsolePlugin.escapeXml(b, values[i]);
+            } else {
+                b.append(values[i]);
+            }
+            b.append(this.segments[i + 1]);
+        }
+        return b;
+    }
+
+    /**
+     * Print the row
+     * @param pw The writer to print to
+     * @param values The values, one per {@code %s} conversion
+     */
+    void print(final PrintWriter pw, final String... values) {
+        if (this.escapeXml) {
+            pw.append(this.append(new StringBuilder(this.literalLength + 32 * values.length), values));
+            return;
+        }
+        checkValues(values);
+        pw.print(this.segments[0]);
+        for (int i = 0; i < values.length; i++) {
+            pw.print(values[i]);
+            pw.print(this.segments[i + 1]);
+        }
+    }
+
+    private void checkValues(final String[] values) {
+        if (values.length != this.segments.length - 1) {
+            throw new IllegalArgumentException(
+                    "Expected " + (this.segments.length - 1) + " values, got " + values.length);
+        }
+    }
+}
@@ -0,0 +1,423 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.console;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.sling.installer.api.info.InstallationState;
+import org.apache.sling.installer.api.info.Resource;
+import org.apache.sling.installer.api.info.ResourceGroup;
+import org.apache.sling.installer.api.tasks.RegisteredResource;
+
+/**
+ * Index of the entity ids, aliases and URLs of all resources, including the alternates
+ * of each group, for prefix and substring queries.
+ * <p>
+ * The lower-cased fields of all resources are concatenated into a single text, each field
+ * terminated by a line feed. Prefix queries use a sorted array of the offsets of the tokens
+ * within the text: the start of each field, the entity id without its type and the last
+ * segment of the URL. Substring queries scan the text of blocks of documents, skipping the
+ * blocks whose filter of contained trigrams does not contain all trigrams of the query.
+ */
+final class SearchIndex {
+
+    /**
+     * An indexed resource.
+     */
+    record Document(String section, RegisteredResource resource, String alias) {}
+
+    /**
+     * The result of a query.
+     * @param documents The matching documents, at most as many as the limit
+     * @param truncated Whether more documents match
+     */
+    record Result(List<Document> documents, boolean truncated) {}
+
+    private static final char TERMINATOR = '\n';
+
+    /** Number of documents sharing a trigram filter. */
+    private static final int BLOCK_SIZE = 16;
+
+    /** Number of longs of the trigram filter of a block, 4096 bits. */
+    private static final int FILTER_LONGS = 64;
+
+    /** Ranges below this size are sorted by insertion. */
+    private static final int INSERTION_SORT_THRESHOLD = 12;
+
+    private final Document[] documents;
+
+    /** Offset of the first field of each document within the text. */
+    private final int[] starts;
+
+    private final String text;
+
+    /** Offsets of the tokens, sorted by the text following them. */
+    private final int[] tokens;
+
+    /** Trigram filters of the blocks, {@link #FILTER_LONGS} per block. */
+    private final long[] filters;
+
+    SearchIndex(final InstallationState state) {
+        final List<Document> docs = new ArrayList<>();
+        final StringBuilder b = new StringBuilder();
+        final IntList docStarts = new IntList();
+        final IntList tokenOffsets = new IntList();
+        for (final ResourceGroup group : state.getActiveResources()) {
+            for (final Resource resource : group.getResources()) {
+                add(docs, b, docStarts, tokenOffsets, OsgiInstallerWebConsolePlugin.SECTION_ACTIVE, resource, group);
+            }
+        }
+        for (final ResourceGroup group : state.getInstalledResources()) {
+            for (final Resource resource : group.getResources()) {
+                add(docs, b, docStarts, tokenOffsets, OsgiInstallerWebConsolePlugin.SECTION_PROCESSED, resource, group);
+            }
+        }
+        for (final RegisteredResource resource : state.getUntransformedResources()) {
+            add(docs, b, docStarts, tokenOffsets, OsgiInstallerWebConsolePlugin.SECTION_UNTRANSFORMED, resource, null);
+        }
+        this.documents = docs.toArray(new Document[0]);
+        this.starts = docStarts.toArray();
+        this.text = b.toString();
+        final char[] chars = this.text.toCharArray();
+        this.tokens = tokenOffsets.toArray();
+        sort(this.tokens, 0, this.tokens.length, 0, chars);
+        this.filters = buildFilters(this.starts, chars);
+    }
+
+    private static void add(
+            final List<Document> docs,
+            final StringBuilder b,
+            final IntList docStarts,
+            final IntList tokens,
+            final String section,
+            final RegisteredResource resource,
+            final ResourceGroup group) {
+        final String alias = group != null ? group.getAlias() : null;
+        docs.add(new Document(section, resource, alias));
+        docStarts.add(b.length());
+
+        final String entityId = resource.getEntityId();
+        if (entityId != null) {
+            final int start = addField(b, tokens, entityId);
+            final int pos = entityId.indexOf(':');
+            if (pos != -1 && pos + 1 < entityId.length()) {
+                tokens.add(start + pos + 1);
+            }
+        } else {
+            b.append(TERMINATOR);
+        }
+        if (alias != null) {
+            addField(b, tokens, alias);
+        } else {
+            b.append(TERMINATOR);
+        }
+        final String url = resource.getURL();
+        if (url != null) {
+            final int start = addField(b, tokens, url);
+            final int pos = url.lastIndexOf('/');
+            if (pos != -1 && pos + 1 < url.length()) {
+                tokens.add(start + pos + 1);
+            }
+        } else {
+            b.append(TERMINATOR);
+        }
+    }
+
+    /**
+     * Append the lower-cased field and register a token at its start.
+     * @return The offset of the field
+     */
+    private static int addField(final StringBuilder b, final IntList tokens, final String value) {
+        final int start = b.length();
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            // a line feed within a value would end the field early
+            b.append(c == TERMINATOR ? ' ' : Character.toLowerCase(c));
+        }
+        b.append(TERMINATOR);
+        if (b.length() - start > 1) {
+            tokens.add(start);
+        }
+        return start;
+    }
+
+    /**
+     * Get the character of the token at the depth, the terminator being lower than all characters.
+     */
+    private static int charAt(final char[] text, final int offset, final int depth) {
+        final char c = text[offset + depth];
+        return c == TERMINATOR ? -1 : c;
+    }
+
+    /**
+     * Sort the tokens in the range, which share the first characters up to the depth, with
+     * a three-way radix quicksort. Equal tokens are ordered by their offset.
+     */
+    private static void sort(final int[] tokens, int low, final int high, final int depth, final char[] text) {
+        while (high - low > INSERTION_SORT_THRESHOLD) {
+            final int pivot = charAt(text, tokens[(low + high) >>> 1], depth);
+            int lt = low;
+            int gt = high - 1;
+            int i = low;
+            while (i <= gt) {
+                final int c = charAt(text, tokens[i], depth);
+                if (c < pivot) {
+                    swap(tokens, lt++, i++);
+                } else if (c > pivot) {
+                    swap(tokens, i, gt--);
+                } else {
+                    i++;
+                }
+            }
+            sort(tokens, low, lt, depth, text);
+            if (pivot == -1) {
+                Arrays.sort(tokens, lt, gt + 1);
+            } else {
+                sort(tokens, lt, gt + 1, depth + 1, text);
+            }
+            low = gt + 1;
+        }
+        for (int i = low + 1; i < high; i++) {
+            final int token = tokens[i];
+            int j = i;
+            while (j > low && compare(text, tokens[j - 1], token, depth) > 0) {
+                tokens[j] = tokens[j - 1];
+                j--;
+            }
+            tokens[j] = token;
+        }
+    }
+
+    private static void swap(final int[] values, final int i, final int j) {
+        final int value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+
+    /**
+     * Compare the tokens at the offsets from the depth on, equal tokens by their offset.
+     */
+    private static int compare(final char[] text, final int o1, final int o2, int depth) {
+        while (true) {
+            final int c1 = charAt(text, o1, depth);
+            final int c2 = charAt(text, o2, depth);
+            if (c1 != c2) {
+                return Integer.compare(c1, c2);
+            }
+            if (c1 == -1) {
+                return Integer.compare(o1, o2);
+            }
+            depth++;
+        }
+    }
+
+    private static long[] buildFilters(final int[] starts, final char[] text) {
+        final int blocks = (starts.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        final long[] filters = new long[blocks * FILTER_LONGS];
+        for (int block = 0; block < blocks; block++) {
+            final int end = blockEnd(starts, block, text.length);
+            for (int pos = starts[block * BLOCK_SIZE]; pos + 2 < end; pos++) {
+                final char c0 = text[pos];
+                final char c1 = text[pos + 1];
+                final char c2 = text[pos + 2];
+                if (c0 != TERMINATOR && c1 != TERMINATOR && c2 != TERMINATOR) {
+                    final int bit = trigram(c0, c1, c2);
+                    filters[block * FILTER_LONGS + (bit >>> 6)] |= 1L << bit;
+                }
+            }
+        }
+        return filters;
+    }
+
+    private static int blockEnd(final int[] starts, final int block, final int length) {
+        final int next = (block + 1) * BLOCK_SIZE;
+        return next < starts.length ? starts[next] : length;
+    }
+
+    /**
+     * Hash a trigram to a bit of the filter.
+     */
+    private static int trigram(final char c0, final char c1, final char c2) {
+        return ((c0 << 16 ^ c1 << 8 ^ c2) * 0x9E3779B9) >>> 20;
+    }
+
+    /**
+     * Compare the token at the offset with the query, considering only the length of the query.
+     * @return Less than zero if the token is lower than the query, zero if it starts with it
+     */
+    private int comparePrefix(int offset, final String query) {
+        for (int i = 0; i < query.length(); i++) {
+            final char c = this.text.charAt(offset++);
+            if (c == TERMINATOR) {
+                return -1;
+            }
+            if (c != query.charAt(i)) {
+                return Character.compare(c, query.charAt(i));
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Get the index of the document containing the offset.
+     */
+    private int documentAt(final int offset) {
+        final int index = Arrays.binarySearch(this.starts, offset);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    /**
+     * Normalize a query to the indexed text
+     * @return The query or {@code null} if nothing can match
+     */
+    static String normalize(final String query) {
+        if (query == null) {
+            return null;
+        }
+        final String trimmed = query.trim();
+        if (trimmed.isEmpty() || trimmed.indexOf(TERMINATOR) != -1) {
+            return null;
+        }
+        // lower-cased per character like the indexed text
+        final StringBuilder b = new StringBuilder(trimmed.length());
+        for (int i = 0; i < trimmed.length(); i++) {
+            b.append(Character.toLowerCase(trimmed.charAt(i)));
+        }
+        return b.toString();
+    }
+
+    /**
+     * Find the resources with an entity id, alias, entity id without type or last URL segment
+     * starting with the query, in order of the matched token.
+     * @param query The query
+     * @param limit The maximum number of documents
+     */
+    Result findPrefix(final String query, final int limit) {
+        final String q = normalize(query);
+        if (q == null) {
+            return new Result(List.of(), false);
+        }
+        // lowest token not lower than the query
+        int low = 0;
+        int high = this.tokens.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (comparePrefix(this.tokens[mid], q) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        final List<Document> result = new ArrayList<>(Math.min(limit, 64));
+        // a document may match with more than one of its tokens
+        final Set<Integer> matched = new HashSet<>();
+        for (int i = low; i < this.tokens.length && comparePrefix(this.tokens[i], q) == 0; i++) {
+            final int doc = documentAt(this.tokens[i]);
+            if (!matched.contains(doc)) {
+                if (result.size() == limit) {
+                    return new Result(Collections.unmodifiableList(result), true);
+                }
+                matched.add(doc);
+                result.add(this.documents[doc]);
+            }
+        }
+        return new Result(Collections.unmodifiableList(result), false);
+    }
+
+    /**
+     * Find the resources with an entity id, alias or URL containing the query, in order of
+     * the installation state.
+     * @param query The query
+     * @param limit The maximum number of documents
+     */
+    Result findSubstring(final String query, final int limit) {
+        final String q = normalize(query);
+        if (q == null) {
+            return new Result(List.of(), false);
+        }
+        final int[] bits = new int[Math.max(0, q.length() - 2)];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = trigram(q.charAt(i), q.charAt(i + 1), q.charAt(i + 2));
+        }
+        final List<Document> result = new ArrayList<>(Math.min(limit, 64));
+        final char first = q.charAt(0);
+        final int blocks = this.filters.length / FILTER_LONGS;
+        for (int block = 0; block < blocks; block++) {
+            if (!mayContain(block, bits)) {
+                continue;
+            }
+            final int end = blockEnd(this.starts, block, this.text.length()) - q.length();
+            for (int pos = this.starts[block * BLOCK_SIZE]; pos <= end; pos++) {
+                if (this.text.charAt(pos) == first && this.text.startsWith(q, pos)) {
+                    if (result.size() == limit) {
+                        return new Result(Collections.unmodifiableList(result), true);
+                    }
+                    final int doc = documentAt(pos);
+                    result.add(this.documents[doc]);
+                    // continue with the next document
+                    pos = doc + 1 < this.starts.length ? this.starts[doc + 1] - 1 : end;
+                }
+            }
+        }
+        return new Result(Collections.unmodifiableList(result), false);
+    }
+
+    private boolean mayContain(final int block, final int[] bits) {
+        final int offset = block * FILTER_LONGS;
+        for (final int bit : bits) {
+            if ((this.filters[offset + (bit >>> 6)] & 1L << bit) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the number of indexed resources.
+     */
+    int getDocumentCount() {
+        return this.documents.length;
+    }
+
+    /**
+     * Growable list of primitive ints.
+     */
+    private static final class IntList {
+
+        private int[] values = new int[16];
+
+        private int size;
+
+        void add(final int value) {
+            if (this.size == this.values.length) {
+                this.values = Arrays.copyOf(this.values, this.size * 2);
+            }
+            this.values[this.size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(this.values, this.size);
+        }
+    }
+}
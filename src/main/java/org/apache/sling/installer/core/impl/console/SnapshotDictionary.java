@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.console;
+
+import java.util.Arrays;
+
+import org.apache.sling.installer.api.InstallableResource;
+
+/**
+ * Dictionary of the installer types of a snapshot, interning each type as a small code
+ * which indexes its label and the prefix of the entity ids of that type.
+ * <p>
+ * The resources of a snapshot are grouped by these codes, see {@link TypeBuckets}, so
+ * rendering a row resolves its label and entity id prefix by the code of its bucket.
+ * The installer creates entity ids as {@code <type>:<id>}, so the id is usually found
+ * by comparing the entity id with the prefix of its code, instead of searching for the
+ * separator and copying the remainder.
+ */
+final class SnapshotDictionary {
+
+    /** The types known to the console, they always have the codes of their position. */
+    private static final String[] KNOWN_TYPES = {
+        InstallableResource.TYPE_BUNDLE,
+        InstallableResource.TYPE_CONFIG,
+        InstallableResource.TYPE_FILE,
+        InstallableResource.TYPE_PROPERTIES
+    };
+
+    private static final String[] KNOWN_LABELS = {"Bundles", "Configurations", "Files", "Properties"};
+
+    /**
+     * Interns the types while the resources of a snapshot are grouped.
+     */
+    static final class Builder {
+
+        private String[] types = Arrays.copyOf(KNOWN_TYPES, KNOWN_TYPES.length + 4);
+
+        private int count = KNOWN_TYPES.length;
+
+        /**
+         * Get the code of a type, assigning the next code to a type seen for the first time.
+         */
+        int intern(final String type) {
+            int code = code(this.types, this.count, type);
+            if (code == -1) {
+                if (this.count == this.types.length) {
+                    this.types = Arrays.copyOf(this.types, this.count * 2);
+                }
+                code = this.count++;
+                this.types[code] = type;
+            }
+            return code;
+        }
+
+        SnapshotDictionary build() {
+            return new SnapshotDictionary(Arrays.copyOf(this.types, this.count));
+        }
+    }
+
+    /** Types, labels and entity id prefixes by code. */
+    private final String[] types;
+
+    private final String[] labels;
+
+    private final String[] prefixes;
+
+    private SnapshotDictionary(final String[] types) {
+        this.types = types;
+        this.labels = new String[types.length];
+        this.prefixes = new String[types.length];
+        for (int i = 0; i < types.length; i++) {
+            this.labels[i] = i < KNOWN_LABELS.length ? KNOWN_LABELS[i] : types[i];
+            // the id starts after the first separator, which must not be part of the type
+            this.prefixes[i] = types[i].indexOf(':') == -1 ? types[i] + ':' : null;
+        }
+    }
+
+    private static int code(final String[] types, final int count, final String type) {
+        // types are usually the constants of the installer api, compare the references first
+        for (int i = 0; i < count; i++) {
+            if (types[i] == type) {
+                return i;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if (types[i].equals(type)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the code of a type
+     * @return The code or {@code -1} if the type is not part of the dictionary
+     */
+    int getCode(final String type) {
+        return type != null ? code(this.types, this.types.length, type) : -1;
+    }
+
+    /**
+     * Get the number of codes.
+     */
+    int size() {
+        return this.types.length;
+    }
+
+    String getType(final int code) {
+        return this.types[code];
+    }
+
+    String getLabel(final int code) {
+        return this.labels[code];
+    }
+
+    /**
+     * Get the start of the id within an entity id, following the first {@code ':'}.
+     * @param code The code of the type of the resource, {@code -1} if unknown
+     * @param entityId The entity id of the resource
+     * @return The start of the id, {@code 0} if the entity id has no prefix
+     */
+    int getIdStart(final int code, final String entityId) {
+        if (code != -1) {
+            final String prefix = this.prefixes[code];
+            if (prefix != null && entityId.startsWith(prefix)) {
+                return prefix.length();
+            }
+        }
+        return entityId.indexOf(':') + 1;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.console;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.sling.installer.api.info.InstallationState;
+import org.apache.sling.installer.api.info.Resource;
+import org.apache.sling.installer.api.info.ResourceGroup;
+import org.apache.sling.installer.api.tasks.RegisteredResource;
+
+/**
+ * Iterator over one record per resource of the active and processed groups, including
+ * the alternates, and the untransformed resources. Each record is rendered on demand.
+ */
+final class StateDump implements Iterator<String> {
+
+    /**
+     * Renders the record of a resource.
+     */
+    @FunctionalInterface
+    interface RecordRenderer {
+        /**
+         * @param section The section of the resource
+         * @param resource The resource
+         * @param alias The alias of the group or {@code null}
+         * @param index The index of the resource within its group, {@code 0} for untransformed resources
+         * @return The record
+         */
+        String render(String section, RegisteredResource resource, String alias, int index);
+    }
+
+    private static final String[] GROUP_SECTIONS = {
+        OsgiInstallerWebConsolePlugin.SECTION_ACTIVE, OsgiInstallerWebConsolePlugin.SECTION_PROCESSED
+    };
+
+    private final List<List<ResourceGroup>> groups;
+
+    private final List<RegisteredResource> untransformed;
+
+    private final RecordRenderer renderer;
+
+    private int section;
+
+    private int group;
+
+    private int resource;
+
+    private String next;
+
+    StateDump(final InstallationState state, final RecordRenderer renderer) {
+        this.groups = List.of(state.getActiveResources(), state.getInstalledResources());
+        this.untransformed = state.getUntransformedResources();
+        this.renderer = renderer;
+        this.next = advance();
+    }
+
+    private String advance() {
+        while (this.section < GROUP_SECTIONS.length) {
+            final List<ResourceGroup> sectionGroups = this.groups.get(this.section);
+            if (this.group == sectionGroups.size()) {
+                this.section++;
+                this.group = 0;
+                continue;
+            }
+            final ResourceGroup current = sectionGroups.get(this.group);
+            final List<Resource> resources = current.getResources();
+            if (this.resource == resources.size()) {
+                this.group++;
+                this.resource = 0;
+                continue;
+            }
+            final int index = this.resource++;
+            return this.renderer.render(GROUP_SECTIONS[this.section], resources.get(index), current.getAlias(), index);
+        }
+        if (this.group < this.untransformed.size()) {
+            return this.renderer.render(
+                    OsgiInstallerWebConsolePlugin.SECTION_UNTRANSFORMED, this.untransformed.get(this.group++), null, 0);
+        }
+        return null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return this.next != null;
+    }
+
+    @Override
+    public String next() {
+        if (this.next == null) {
+            throw new NoSuchElementException();
+        }
+        final String result = this.next;
+        this.next = advance();
+        return result;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.console;
+
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.util.function.Supplier;
+
+/**
+ * URL of an attachment of the configuration printer whose content is created when the
+ * URL is opened, instead of being rendered into memory or a file upfront.
+ */
+final class StreamedAttachment {
+
+    private static final String PROTOCOL = "osgi-installer";
+
+    private StreamedAttachment() {
+        // static methods only
+    }
+
+    /**
+     * Create the URL of an attachment
+     * @param name The file name of the attachment
+     * @param content Creates a new stream of the content whenever the URL is opened
+     * @return The URL
+     */
+    static URL create(final String name, final Supplier<InputStream> content) {
+        try {
+            return new URL(null, PROTOCOL + ":/" + name, new Handler(content));
+        } catch (final MalformedURLException e) {
+            throw new IllegalArgumentException("Invalid attachment name " + name, e);
+        }
+    }
+
+    private static final class Handler extends URLStreamHandler {
+
+        private final Supplier<InputStream> content;
+
+        Handler(final Supplier<InputStream> content) {
+            this.content = content;
+        }
+
+        @Override
+        protected URLConnection openConnection(final URL url) {
+            return new URLConnection(url) {
+                @Override
+                public void connect() {
+                    this.connected = true;
+                }
+
+                @Override
+                public InputStream getInputStream() {
+                    this.connected = true;
+                    return Handler.this.content.get();
+                }
+            };
+        }
+    }
+}
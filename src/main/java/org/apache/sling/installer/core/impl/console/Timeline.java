@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.console;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.apache.sling.installer.api.info.InstallationState;
+import org.apache.sling.installer.api.info.Resource;
+import org.apache.sling.installer.api.info.ResourceGroup;
+
+/**
+ * The most recently changed resources of the active and processed groups, including
+ * the alternates. The resources are selected with a heap bounded by the limit, so
+ * building the timeline takes O(n log limit) instead of sorting all resources.
+ */
+final class Timeline {
+
+    record Entry(String section, Resource resource, String alias) {}
+
+    /**
+     * A selected resource, ordered by the time of its last change and, for equal times,
+     * with the resources appearing first in the installation state ranked higher.
+     */
+    private record Candidate(Entry entry, long lastChange, int order) {}
+
+    private static final Comparator<Candidate> RANKING = Comparator.comparingLong(Candidate::lastChange)
+            .thenComparing(Comparator.comparingInt(Candidate::order).reversed());
+
+    private final int limit;
+
+    private final List<Entry> entries;
+
+    private int changedCount;
+
+    /**
+     * @param state The installation state
+     * @param limit The maximum number of resources
+     */
+    Timeline(final InstallationState state, final int limit) {
+        this.limit = limit;
+        // the least recently changed of the selected resources is the head of the heap
+        final PriorityQueue<Candidate> heap = new PriorityQueue<>(Math.max(1, Math.min(limit, 1024)), RANKING);
+        select(heap, OsgiInstallerWebConsolePlugin.SECTION_ACTIVE, state.getActiveResources());
+        select(heap, OsgiInstallerWebConsolePlugin.SECTION_PROCESSED, state.getInstalledResources());
+
+        final Entry[] result = new Entry[heap.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = heap.poll().entry();
+        }
+        this.entries = Collections.unmodifiableList(Arrays.asList(result));
+    }
+
+    private void select(final PriorityQueue<Candidate> heap, final String section, final List<ResourceGroup> groups) {
+        for (final ResourceGroup group : groups) {
+            for (final Resource resource : group.getResources()) {
+                final long lastChange = resource.getLastChange();
+                if (lastChange <= 0) {
+                    continue;
+                }
+                final int order = this.changedCount++;
+                if (heap.size() == this.limit) {
+                    // equal times do not replace the head as it appeared first
+                    if (this.limit == 0 || lastChange <= heap.peek().lastChange()) {
+                        continue;
+                    }
+                    heap.poll();
+                }
+                heap.add(new Candidate(new Entry(section, resource, group.getAlias()), lastChange, order));
+            }
+        }
+    }
+
+    int getLimit() {
+        return this.limit;
+    }
+
+    /**
+     * Get the number of resources with a last change.
+     */
+    int getChangedCount() {
+        return this.changedCount;
+    }
+
+    /**
+     * Get the most recently changed resources, newest first.
+     */
+    List<Entry> getEntries() {
+        return this.entries;
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.console;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Items grouped by the code of their type, see {@link SnapshotDictionary}. The codes
+ * are ordered by their first appearance, the items of each code keep their relative order.
+ */
+final class TypeBuckets<T> {
+
+    private static final TypeBuckets<?> EMPTY = new TypeBuckets<>(new int[0], List.of(), 0);
+
+    /** Codes in order of their first appearance. */
+    private final int[] codes;
+
+    /** Items by code, {@code null} for codes without items. */
+    private final List<List<T>> byCode;
+
+    private final int itemCount;
+
+    private TypeBuckets(final int[] codes, final List<List<T>> byCode, final int itemCount) {
+        this.codes = codes;
+        this.byCode = byCode;
+        this.itemCount = itemCount;
+    }
+
+    /**
+     * Group the items by their code in a single pass.
+     */
+    static <T> TypeBuckets<T> of(final List<T> items, final ToIntFunction<T> code) {
+        final List<List<T>> byCode = new ArrayList<>();
+        int[] codes = new int[4];
+        int count = 0;
+        for (final T item : items) {
+            final int c = code.applyAsInt(item);
+            while (byCode.size() <= c) {
+                byCode.add(null);
+            }
+            List<T> bucket = byCode.get(c);
+            if (bucket == null) {
+                bucket = new ArrayList<>();
+                byCode.set(c, bucket);
+                if (count == codes.length) {
+                    codes = Arrays.copyOf(codes, count * 2);
+                }
+                codes[count++] = c;
+            }
+            bucket.add(item);
+        }
+        for (int i = 0; i < count; i++) {
+            byCode.set(codes[i], Collections.unmodifiableList(byCode.get(codes[i])));
+        }
+        return new TypeBuckets<>(Arrays.copyOf(codes, count), byCode, items.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> TypeBuckets<T> empty() {
+        return (TypeBuckets<T>) EMPTY;
+    }
+
+    /**
+     * Get the bucket of a single code
+     * @param code The code, {@code -1} for none
+     * @return Buckets with only the given code, empty if there are no items of that code
+     */
+    TypeBuckets<T> select(final int code) {
+        final List<T> bucket = get(code);
+        if (bucket.isEmpty()) {
+            return empty();
+        }
+        final List<List<T>> selected = new ArrayList<>(Collections.nCopies(code + 1, null));
+        selected.set(code, bucket);
+        return new TypeBuckets<>(new int[] {code}, selected, bucket.size());
+    }
+
+    /**
+     * Get the number of codes with items.
+     */
+    int size() {
+        return this.codes.length;
+    }
+
+    boolean isEmpty() {
+        return this.codes.length == 0;
+    }
+
+    /**
+     * Get the code at a position in order of first appearance
+     * @param index The position, less than {@link #size()}
+     */
+    int getCode(final int index) {
+        return this.codes[index];
+    }
+
+    /**
+     * Get the items of a code, an empty list if there are none.
+     */
+    List<T> get(final int code) {
+        final List<T> bucket = code >= 0 && code < this.byCode.size() ? this.byCode.get(code) : null;
+        return bucket != null ? bucket : List.of();
+    }
+
+    /**
+     * Get the number of items of all codes.
+     */
+    int getItemCount() {
+        return this.itemCount;
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+(function() {
+    function createRow(alternate) {
+        var row = document.createElement('tr');
+        row.className = 'alternate';
+        row.appendChild(document.createElement('td'));
+        [alternate.info, alternate.url, alternate.state, alternate.error].forEach(function(value) {
+            var cell = document.createElement('td');
+            cell.textContent = value == null ? '' : value;
+            row.appendChild(cell);
+        });
+        return row;
+    }
+
+    function toggle(link) {
+        var toggleRow = link.closest('tr');
+        if (link.dataset.loaded) {
+            var row = toggleRow.nextElementSibling;
+            while (row && row.classList.contains('alternate')) {
+                row.hidden = !row.hidden;
+                row = row.nextElementSibling;
+            }
+            return;
+        }
+        fetch(link.href, { credentials: 'same-origin' })
+            .then(function(response) {
+                if (!response.ok) {
+                    throw new Error(response.statusText);
+                }
+                return response.json();
+            })
+            .then(function(group) {
+                var anchor = toggleRow;
+                group.alternates.forEach(function(alternate) {
+                    var row = createRow(alternate);
+                    anchor.after(row);
+                    anchor = row;
+                });
+                link.dataset.loaded = 'true';
+            })
+            .catch(function(error) {
+                link.textContent = link.textContent + ' (' + error.message + ')';
+            });
+    }
+
+    var searchTimer = null;
+
+    function search(input) {
+        var results = document.querySelector('ul.installer-search-results');
+        var query = input.value.trim();
+        if (!query) {
+            results.hidden = true;
+            results.replaceChildren();
+            return;
+        }
+        var href = input.dataset.href + '?mode=substring&q=' + encodeURIComponent(query);
+        fetch(href, { credentials: 'same-origin' })
+            .then(function(response) {
+                if (!response.ok) {
+                    throw new Error(response.statusText);
+                }
+                return response.json();
+            })
+            .then(function(result) {
+                if (input.value.trim() !== query) {
+                    // a newer query is pending
+                    return;
+                }
+                results.replaceChildren();
+                result.results.forEach(function(resource) {
+                    var item = document.createElement('li');
+                    item.textContent = resource.section + ' ' + resource.type + ': ' + resource.entityId
+                        + (resource.alias ? ' (' + resource.alias + ')' : '')
+                        + ', ' + resource.url + (resource.state ? ', ' + resource.state : '');
+                    results.appendChild(item);
+                });
+                if (result.truncated) {
+                    var more = document.createElement('li');
+                    more.textContent = '...';
+                    results.appendChild(more);
+                } else if (!result.results.length) {
+                    var none = document.createElement('li');
+                    none.textContent = 'none';
+                    results.appendChild(none);
+                }
+                results.hidden = false;
+            })
+            .catch(function(error) {
+                results.replaceChildren();
+                var item = document.createElement('li');
+                item.textContent = error.message;
+                results.appendChild(item);
+                results.hidden = false;
+            });
+    }
+
+    function loadReason(details) {
+        details.dataset.loaded = 'true';
+        fetch(details.dataset.href, { credentials: 'same-origin' })
+            .then(function(response) {
+                if (!response.ok) {
+                    throw new Error(response.statusText);
+                }
+                return response.json();
+            })
+            .then(function(reason) {
+                var list = document.createElement('ul');
+                list.className = 'list';
+                reason.entityIds.forEach(function(entityId) {
+                    var item = document.createElement('li');
+                    item.textContent = entityId;
+                    list.appendChild(item);
+                });
+                if (reason.truncated) {
+                    var more = document.createElement('li');
+                    more.textContent = '...';
+                    list.appendChild(more);
+                }
+                details.appendChild(list);
+            })
+            .catch(function(error) {
+                var item = document.createElement('p');
+                item.textContent = error.message;
+                details.appendChild(item);
+            });
+    }
+
+    function loadResources(container) {
+        fetch(container.dataset.href, { credentials: 'same-origin' })
+            .then(function(response) {
+                if (!response.ok) {
+                    throw new Error(response.statusText);
+                }
+                return response.text();
+            })
+            .then(function(html) {
+                container.innerHTML = html;
+            })
+            .catch(function(error) {
+                container.textContent = error.message;
+            });
+    }
+
+    function init() {
+        document.querySelectorAll('div.installer-resources[data-href]').forEach(loadResources);
+    }
+
+    if (document.readyState === 'loading') {
+        document.addEventListener('DOMContentLoaded', init);
+    } else {
+        init();
+    }
+
+    document.addEventListener('input', function(event) {
+        if (event.target.matches('input.installer-search')) {
+            clearTimeout(searchTimer);
+            searchTimer = setTimeout(search, 200, event.target);
+        }
+    });
+
+    // toggle events do not bubble
+    document.addEventListener('toggle', function(event) {
+        var details = event.target;
+        if (details.open && details.matches('details.installer-reason') && !details.dataset.loaded) {
+            loadReason(details);
+        }
+    }, true);
+
+    document.addEventListener('click', function(event) {
+        var link = event.target.closest('a.alternates-toggle');
+        if (link) {
+            event.preventDefault();
+            toggle(link);
+        }
+    });
+})();
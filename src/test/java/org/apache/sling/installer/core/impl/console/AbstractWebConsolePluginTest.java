@@ -56,6 +56,17 @@ class AbstractWebConsolePluginTest {
         assertEquals("&quot;dog&apos;s &amp; cat&quot;", plugin.escapeXml("\"dog's & cat\""));
     }
 
+    /**
+     * Test method for {@link org.apache.sling.installer.core.impl.console.AbstractWebConsolePlugin#quoteJson(java.lang.String)}.
+     */
+    @Test
+    void testQuoteJson() {
+        assertEquals("null", plugin.quoteJson(null));
+        assertEquals("\"\"", plugin.quoteJson(""));
+        assertEquals("\"\\u003chello/\\u003e\"", plugin.quoteJson("<hello/>"));
+        assertEquals("\"\\\"a\\\\b\\nc\\u0001\"", plugin.quoteJson("\"a\\b\nc\u0001"));
+    }
+
     /**
      * Test method for {@link
      * org.apache.sling.installer.factories.configuration.impl.ConfigurationSerializerWebConsolePlugin#getResource(java.lang.String)}.
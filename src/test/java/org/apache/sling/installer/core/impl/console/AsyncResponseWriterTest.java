@@ -0,0 +1,297 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.console;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ */
+class AsyncResponseWriterTest {
+
+    private ExecutorService executor;
+
+    private HttpServletRequest req;
+
+    private HttpServletResponse res;
+
+    private AsyncContext context;
+
+    private final CountDownLatch completed = new CountDownLatch(1);
+
+    @BeforeEach
+    void beforeEach() {
+        executor = Executors.newSingleThreadExecutor();
+        req = Mockito.mock(HttpServletRequest.class);
+        res = Mockito.mock(HttpServletResponse.class);
+        context = Mockito.mock(AsyncContext.class);
+        Mockito.doReturn(context).when(req).startAsync(req, res);
+        Mockito.doReturn(res).when(context).getResponse();
+        Mockito.doAnswer(invocation -> {
+                    completed.countDown();
+                    return null;
+                })
+                .when(context)
+                .complete();
+    }
+
+    @AfterEach
+    void afterEach() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Output stream which is only ready for a single write until the client reads again.
+     */
+    private static final class SlowClientOutputStream extends ServletOutputStream {
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        WriteListener listener;
+
+        boolean ready = true;
+
+        @Override
+        public boolean isReady() {
+            return ready;
+        }
+
+        @Override
+        public void setWriteListener(final WriteListener writeListener) {
+            this.listener = writeListener;
+        }
+
+        @Override
+        public void write(final int b) {
+            bytes.write(b);
+            ready = false;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            bytes.write(b, off, len);
+            ready = false;
+        }
+
+        void read() throws IOException {
+            ready = true;
+            listener.onWritePossible();
+        }
+    }
+
+    /**
+     * Output stream of a slow client which is not ready after every other write. Like the container,
+     * it calls the write listener from another thread once the client has read the written bytes.
+     */
+    static final class AlternatingOutputStream extends ServletOutputStream {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        private final AtomicInteger notReadyCount = new AtomicInteger();
+
+        private final ExecutorService container;
+
+        private volatile WriteListener listener;
+
+        private volatile boolean ready = true;
+
+        private int writes;
+
+        AlternatingOutputStream(final ExecutorService container) {
+            this.container = container;
+        }
+
+        @Override
+        public boolean isReady() {
+            if (this.ready) {
+                return true;
+            }
+            this.notReadyCount.incrementAndGet();
+            this.container.execute(() -> {
+                this.ready = true;
+                writePossible();
+            });
+            return false;
+        }
+
+        @Override
+        public void setWriteListener(final WriteListener writeListener) {
+            this.listener = writeListener;
+            this.container.execute(this::writePossible);
+        }
+
+        @Override
+        public void write(final int b) {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public synchronized void write(final byte[] b, final int off, final int len) {
+            if (!this.ready) {
+                throw new IllegalStateException("Write while not ready");
+            }
+            this.bytes.write(b, off, len);
+            this.ready = ++this.writes % 2 == 0;
+        }
+
+        int getNotReadyCount() {
+            return this.notReadyCount.get();
+        }
+
+        synchronized String toString(final Charset charset) {
+            return this.bytes.toString(charset);
+        }
+
+        private void writePossible() {
+            try {
+                this.listener.onWritePossible();
+            } catch (final IOException e) {
+                this.listener.onError(e);
+            }
+        }
+    }
+
+    @Test
+    void testWriteInChunks() throws Exception {
+        final SlowClientOutputStream out = new SlowClientOutputStream();
+        Mockito.doReturn(out).when(res).getOutputStream();
+
+        final String content = "äbc".repeat(AsyncResponseWriter.CHUNK_SIZE);
+        final AsyncResponseWriter writer = new AsyncResponseWriter(executor, 1000);
+        writer.write(req, res, pw -> pw.print(content));
+        Mockito.verify(context).setTimeout(1000);
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertNotNull(out.listener);
+        int reads = 0;
+        while (completed.getCount() > 0) {
+            out.read();
+            reads++;
+        }
+        // 4 bytes per repetition in UTF-8 written in chunks
+        assertEquals(5, reads);
+        assertEquals(content, out.bytes.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testSlowReader() throws Exception {
+        final ExecutorService container = Executors.newSingleThreadExecutor();
+        try {
+            final AlternatingOutputStream out = new AlternatingOutputStream(container);
+            Mockito.doReturn(out).when(res).getOutputStream();
+
+            // six chunks, the client is not ready after the first, third and fifth
+            final String content = "abc".repeat(AsyncResponseWriter.CHUNK_SIZE * 2);
+            final AsyncResponseWriter writer = new AsyncResponseWriter(executor, 1000);
+            writer.write(req, res, pw -> pw.print(content));
+            assertTrue(completed.await(10, TimeUnit.SECONDS));
+            assertEquals(3, out.getNotReadyCount());
+            assertEquals(content, out.toString(StandardCharsets.UTF_8));
+            Mockito.verify(context, Mockito.times(1)).complete();
+        } finally {
+            container.shutdownNow();
+        }
+    }
+
+    @Test
+    void testRenderFailure() throws Exception {
+        final AsyncResponseWriter writer = new AsyncResponseWriter(executor, 1000);
+        writer.write(req, res, pw -> {
+            throw new IOException("failure");
+        });
+        assertTrue(completed.await(10, TimeUnit.SECONDS));
+        Mockito.verify(res).setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        Mockito.verify(res, Mockito.never()).getOutputStream();
+    }
+
+    @Test
+    void testRejectedExecution() throws Exception {
+        final SlowClientOutputStream out = new SlowClientOutputStream();
+        Mockito.doReturn(out).when(res).getOutputStream();
+
+        executor.shutdown();
+        final AsyncResponseWriter writer = new AsyncResponseWriter(executor, 1000);
+        writer.write(req, res, pw -> pw.print("content"));
+        // rendered on the calling thread
+        assertNotNull(out.listener);
+        out.read();
+        out.read();
+        assertEquals(0, completed.getCount());
+        assertEquals("content", out.bytes.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testWriteError() throws Exception {
+        final SlowClientOutputStream out = new SlowClientOutputStream();
+        Mockito.doReturn(out).when(res).getOutputStream();
+
+        executor.shutdown();
+        final AsyncResponseWriter writer = new AsyncResponseWriter(executor, 1000);
+        writer.write(req, res, pw -> pw.print("content"));
+        out.listener.onError(new IOException("connection reset"));
+        assertEquals(0, completed.getCount());
+        // no further writes after an error
+        out.read();
+        assertEquals(0, out.bytes.size());
+        Mockito.verify(context, Mockito.times(1)).complete();
+    }
+
+    @Test
+    void testAbortQueuedTasks() throws Exception {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                blocked.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        final AsyncResponseWriter writer = new AsyncResponseWriter(executor, 1000);
+        writer.write(req, res, pw -> pw.print("content"));
+
+        final List<Runnable> queued = executor.shutdownNow();
+        assertEquals(1, queued.size());
+        AsyncResponseWriter.abort(queued);
+        assertEquals(0, completed.getCount());
+        Mockito.verify(res).setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        Mockito.verify(res, Mockito.never()).getOutputStream();
+    }
+}
@@ -0,0 +1,568 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.console;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Dictionary;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.apache.sling.installer.api.info.InfoProvider;
+import org.apache.sling.installer.api.info.Resource;
+import org.apache.sling.installer.api.info.ResourceGroup;
+import org.apache.sling.installer.api.tasks.ResourceState;
+import org.apache.sling.testing.mock.sling.junit5.SlingContext;
+import org.apache.sling.testing.mock.sling.junit5.SlingContextExtension;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingJakartaHttpServletRequest;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingJakartaHttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.osgi.framework.Version;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Renders the resources of the console page asynchronously to slow clients and the
+ * configuration printer from many threads while the installer changes resources and
+ * the installation state, reporting throughput, latencies and the lock contention recorded by JFR. Only run on request, with
+ * {@code mvn test -Dbenchmark=true -Dtest=ConcurrentLoadTest}.
+ */
+@ExtendWith(SlingContextExtension.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ConcurrentLoadTest {
+
+    private static final int RESOURCES = 10_000;
+
+    private static final int THREADS = 16;
+
+    /** Number of different states the installer alternates between. */
+    private static final int STATES = 4;
+
+    private static final Duration WARMUP = Duration.ofSeconds(3);
+
+    private static final Duration DURATION = Duration.ofSeconds(10);
+
+    /** Interval in milliseconds in which the installation state changes. */
+    private static final long MUTATION_INTERVAL = 100;
+
+    /** Number of resources the installer changes per interval. */
+    private static final int MUTATIONS = 200;
+
+    /** Time in seconds to wait for an asynchronous response. */
+    private static final long RESPONSE_TIMEOUT = 30;
+
+    /** Number of monitor classes reported. */
+    private static final int TOP_MONITORS = 5;
+
+    private static final long TIME = 1_700_000_000_000L;
+
+    public final SlingContext context = new SlingContext();
+
+    private OsgiInstallerWebConsolePlugin plugin;
+
+    private final StubInstallationState[] states = new StubInstallationState[STATES];
+
+    private final AtomicInteger generation = new AtomicInteger();
+
+    /** The processed resources of all states, changed while they are rendered. */
+    private final List<MutableResource> mutableResources = new ArrayList<>();
+
+    /** Calls the write listeners of the asynchronous responses, like the container. */
+    private ExecutorService container;
+
+    /** Time the threads of the last run were released. */
+    private volatile Instant released;
+
+    private enum Operation {
+        SERVICE,
+        PRINT_CONFIGURATION
+    }
+
+    /**
+     * Latencies of a single thread, in nanoseconds.
+     */
+    private static final class Latencies {
+
+        private long[] values = new long[1024];
+
+        private int size;
+
+        void add(final long nanos) {
+            if (this.size == this.values.length) {
+                this.values = Arrays.copyOf(this.values, this.size * 2);
+            }
+            this.values[this.size++] = nanos;
+        }
+    }
+
+    /**
+     * Processed resource whose state, digest and time of the last change are changed by the installer
+     * while the console renders it.
+     */
+    private static final class MutableResource implements Resource {
+
+        private final Resource resource;
+
+        private volatile ResourceState state;
+
+        private volatile String digest;
+
+        private volatile long lastChange;
+
+        MutableResource(final Resource resource) {
+            this.resource = resource;
+            this.state = resource.getState();
+            this.digest = resource.getDigest();
+            this.lastChange = resource.getLastChange();
+        }
+
+        /**
+         * Reinstall the resource with new content.
+         */
+        void change(final long time) {
+            this.state = this.state == ResourceState.INSTALLED ? ResourceState.INSTALL : ResourceState.INSTALLED;
+            this.digest = this.resource.getDigest() + "-" + Long.toHexString(time);
+            this.lastChange = time;
+        }
+
+        @Override
+        public String getScheme() {
+            return this.resource.getScheme();
+        }
+
+        @Override
+        public String getURL() {
+            return this.resource.getURL();
+        }
+
+        @Override
+        public String getType() {
+            return this.resource.getType();
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return this.resource.getInputStream();
+        }
+
+        @Override
+        public Dictionary<String, Object> getDictionary() {
+            return this.resource.getDictionary();
+        }
+
+        @Override
+        public String getDigest() {
+            return this.digest;
+        }
+
+        @Override
+        public int getPriority() {
+            return this.resource.getPriority();
+        }
+
+        @Override
+        public String getEntityId() {
+            return this.resource.getEntityId();
+        }
+
+        @Override
+        public ResourceState getState() {
+            return this.state;
+        }
+
+        @Override
+        public String getError() {
+            return this.resource.getError();
+        }
+
+        @Override
+        public Version getVersion() {
+            return this.resource.getVersion();
+        }
+
+        @Override
+        public long getLastChange() {
+            return this.lastChange;
+        }
+
+        @Override
+        public Object getAttribute(final String key) {
+            return this.resource.getAttribute(key);
+        }
+    }
+
+    /**
+     * Asynchronous context of a request, signalling its completion.
+     */
+    private static final class LoadAsyncContext implements AsyncContext {
+
+        private final ServletRequest request;
+
+        private final ServletResponse response;
+
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        LoadAsyncContext(final ServletRequest request, final ServletResponse response) {
+            this.request = request;
+            this.response = response;
+        }
+
+        void await() throws InterruptedException {
+            assertTrue(this.completed.await(RESPONSE_TIMEOUT, TimeUnit.SECONDS), "response not completed");
+        }
+
+        @Override
+        public ServletRequest getRequest() {
+            return this.request;
+        }
+
+        @Override
+        public ServletResponse getResponse() {
+            return this.response;
+        }
+
+        @Override
+        public boolean hasOriginalRequestAndResponse() {
+            return true;
+        }
+
+        @Override
+        public void dispatch() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void dispatch(final String path) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void dispatch(final ServletContext context, final String path) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void complete() {
+            this.completed.countDown();
+        }
+
+        @Override
+        public void start(final Runnable run) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void addListener(final AsyncListener listener) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void addListener(
+                final AsyncListener listener,
+                final ServletRequest servletRequest,
+                final ServletResponse servletResponse) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T extends AsyncListener> T createListener(final Class<T> clazz) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setTimeout(final long timeout) {
+            // the test waits for the completion itself
+        }
+
+        @Override
+        public long getTimeout() {
+            return RESPONSE_TIMEOUT * 1000;
+        }
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        // states differ in the number of resources and the time of their changes
+        for (int i = 0; i < STATES; i++) {
+            states[i] = withMutableResources(StubInstallationState.generate(RESOURCES + i * 100, TIME + i * 60_000L));
+        }
+        // like the installer, every call returns the state at that time
+        context.registerService(InfoProvider.class, () -> states[generation.get() % STATES]);
+        container = Executors.newCachedThreadPool();
+        plugin = context.registerInjectActivateService(
+                OsgiInstallerWebConsolePlugin.class,
+                "snapshot.max.age",
+                MUTATION_INTERVAL,
+                "render.max.rows",
+                0,
+                "render.max.size",
+                0);
+    }
+
+    @AfterEach
+    void afterEach() {
+        container.shutdownNow();
+    }
+
+    /**
+     * Replace the processed resources of the state by mutable ones.
+     */
+    private StubInstallationState withMutableResources(final StubInstallationState state) {
+        final List<ResourceGroup> installed = new ArrayList<>();
+        for (final ResourceGroup group : state.getInstalledResources()) {
+            final List<Resource> resources = new ArrayList<>();
+            for (final Resource resource : group.getResources()) {
+                final MutableResource mutable = new MutableResource(resource);
+                mutableResources.add(mutable);
+                resources.add(mutable);
+            }
+            installed.add(new StubInstallationState.StubGroup(resources, group.getAlias()));
+        }
+        return new StubInstallationState(state.getActiveResources(), installed, state.getUntransformedResources());
+    }
+
+    @Test
+    void loadTest() throws Exception {
+        run(WARMUP, null);
+
+        final Path file = Files.createTempFile("osgi-installer-console", ".jfr");
+        try {
+            final Map<Operation, List<Latencies>> latencies;
+            try (Recording recording = new Recording()) {
+                recording.enable("jdk.JavaMonitorEnter").withThreshold(Duration.ZERO);
+                recording.enable("jdk.ThreadPark").withThreshold(Duration.ZERO);
+                recording.start();
+                latencies = new HashMap<>();
+                final long nanos = run(DURATION, latencies);
+                recording.stop();
+                recording.dump(file);
+                report(latencies, nanos);
+                reportContention(RecordingFile.readAllEvents(file), released);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Run the load for the given duration
+     * @param duration The duration
+     * @param latencies Map receiving the latencies per operation or {@code null}
+     * @return The time in nanoseconds until all operations completed
+     */
+    private long run(final Duration duration, final Map<Operation, List<Latencies>> latencies)
+            throws InterruptedException {
+        final ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        final CountDownLatch start = new CountDownLatch(1);
+        // operations started before the end are completed
+        final long end = System.nanoTime() + duration.toNanos();
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            final Operation operation = Operation.values()[i % Operation.values().length];
+            final Latencies values = new Latencies();
+            if (latencies != null) {
+                latencies.computeIfAbsent(operation, o -> new ArrayList<>()).add(values);
+            }
+            threads.add(new Thread(
+                    () -> {
+                        try {
+                            start.await();
+                            while (System.nanoTime() < end) {
+                                final long t = System.nanoTime();
+                                invoke(operation);
+                                values.add(System.nanoTime() - t);
+                            }
+                        } catch (final Throwable e) {
+                            failures.add(e);
+                        }
+                    },
+                    "load-" + operation + "-" + i));
+        }
+        final Thread mutator = new Thread(
+                () -> {
+                    try {
+                        start.await();
+                        int next = 0;
+                        while (System.nanoTime() < end) {
+                            Thread.sleep(MUTATION_INTERVAL);
+                            // change resources of all states, including the ones currently rendered
+                            final long time = System.currentTimeMillis();
+                            for (int i = 0; i < MUTATIONS; i++) {
+                                mutableResources.get(next).change(time);
+                                next = (next + 1) % mutableResources.size();
+                            }
+                            generation.incrementAndGet();
+                        }
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                },
+                "load-mutator");
+        threads.forEach(Thread::start);
+        mutator.start();
+        final long started = System.nanoTime();
+        released = Instant.now();
+        start.countDown();
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        mutator.join();
+        final long nanos = System.nanoTime() - started;
+        if (!failures.isEmpty()) {
+            final AssertionError error = new AssertionError(failures.size() + " operations failed");
+            failures.forEach(error::addSuppressed);
+            throw error;
+        }
+        return nanos;
+    }
+
+    private void invoke(final Operation operation) throws IOException, InterruptedException {
+        switch (operation) {
+            case SERVICE:
+                // a slow client, written to asynchronously
+                final AsyncResponseWriterTest.AlternatingOutputStream out =
+                        new AsyncResponseWriterTest.AlternatingOutputStream(container);
+                final MockSlingJakartaHttpServletResponse resp = new MockSlingJakartaHttpServletResponse() {
+                    @Override
+                    public ServletOutputStream getOutputStream() {
+                        return out;
+                    }
+                };
+                final AtomicReference<LoadAsyncContext> asyncContext = new AtomicReference<>();
+                final MockSlingJakartaHttpServletRequest req =
+                        new MockSlingJakartaHttpServletRequest(context.resourceResolver(), context.bundleContext()) {
+                            @Override
+                            public boolean isAsyncSupported() {
+                                return true;
+                            }
+
+                            @Override
+                            public AsyncContext startAsync(
+                                    final ServletRequest servletRequest, final ServletResponse servletResponse) {
+                                asyncContext.set(new LoadAsyncContext(servletRequest, servletResponse));
+                                return asyncContext.get();
+                            }
+                        };
+                req.setPathInfo("/osgi-installer" + OsgiInstallerWebConsolePlugin.RESOURCES_SUFFIX);
+                plugin.service(req, resp);
+                assertNotNull(asyncContext.get(), "response not rendered asynchronously");
+                asyncContext.get().await();
+                assertEquals(200, resp.getStatus());
+                assertTrue(out.toString(StandardCharsets.UTF_8).contains("Untransformed Resources"));
+                break;
+            case PRINT_CONFIGURATION:
+                final StringWriter writer = new StringWriter();
+                plugin.printConfiguration(new PrintWriter(writer), "txt");
+                assertTrue(writer.toString().contains("Untransformed Resources"));
+                break;
+        }
+    }
+
+    private static void report(final Map<Operation, List<Latencies>> latencies, final long nanos) {
+        System.out.printf(
+                "load: %d threads, %d resources, state changed every %d ms, %.1f s%n",
+                THREADS, RESOURCES, MUTATION_INTERVAL, nanos / 1_000_000_000.0);
+        for (final Operation operation : Operation.values()) {
+            final List<Latencies> perThread = latencies.get(operation);
+            final long[] values =
+                    new long[perThread.stream().mapToInt(l -> l.size).sum()];
+            int pos = 0;
+            for (final Latencies l : perThread) {
+                System.arraycopy(l.values, 0, values, pos, l.size);
+                pos += l.size;
+            }
+            assertTrue(values.length > 0, operation + " never completed");
+            Arrays.sort(values);
+            System.out.printf(
+                    "%s: %d threads, %d ops, %.1f ops/s, p50 %.1f ms, p99 %.1f ms, max %.1f ms%n",
+                    operation,
+                    perThread.size(),
+                    values.length,
+                    values.length * 1_000_000_000.0 / nanos,
+                    values[values.length / 2] / 1_000_000.0,
+                    values[values.length * 99 / 100] / 1_000_000.0,
+                    values[values.length - 1] / 1_000_000.0);
+        }
+    }
+
+    /**
+     * Report the blocked monitor enters and parked threads of the load threads, by the class of the lock.
+     * Waiting for the start of the load is excluded.
+     */
+    private static void reportContention(final List<RecordedEvent> events, final Instant started) {
+        final Map<String, long[]> contention = new HashMap<>();
+        for (final RecordedEvent event : events) {
+            if (event.getThread() == null
+                    || event.getThread().getJavaName() == null
+                    || !event.getThread().getJavaName().startsWith("load-")
+                    || event.getStartTime().isBefore(started)) {
+                continue;
+            }
+            final RecordedClass lockClass;
+            if ("jdk.JavaMonitorEnter".equals(event.getEventType().getName())) {
+                lockClass = event.getClass("monitorClass");
+            } else {
+                lockClass = event.getClass("parkedClass");
+            }
+            final String name =
+                    event.getEventType().getLabel() + " " + (lockClass != null ? lockClass.getName() : "unknown");
+            final long[] values = contention.computeIfAbsent(name, n -> new long[2]);
+            values[0]++;
+            values[1] += event.getDuration().toNanos();
+        }
+        System.out.printf("contention: %d locks%n", contention.size());
+        contention.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue()[1], a.getValue()[1]))
+                .limit(TOP_MONITORS)
+                .forEach(entry -> System.out.printf(
+                        "contention %s: %d events, %.1f ms%n",
+                        entry.getKey(), entry.getValue()[0], entry.getValue()[1] / 1_000_000.0));
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.console;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.sling.installer.api.info.InstallationState;
+import org.apache.sling.installer.core.impl.console.StubInstallationState.StubResource;
+import org.junit.jupiter.api.Test;
+
+import static org.apache.sling.installer.core.impl.console.StubInstallationState.group;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ */
+class DigestIndexTest {
+
+    private static StubResource resource(final String entityId, final String url, final String digest) {
+        return StubInstallationState.resource(entityId).withUrl(url).withDigest(digest);
+    }
+
+    @Test
+    void testDuplicates() {
+        final InstallationState state = new StubInstallationState(
+                // same bundle from two install folders
+                List.of(group(
+                        resource("bundle:a", "jcrinstall:/apps/a/install/a.jar", "d1"),
+                        resource("bundle:a", "jcrinstall:/libs/a/install/a.jar", "d1"))),
+                // same content as different configurations, and a unique digest
+                List.of(
+                        group(resource("config:b", "jcrinstall:/apps/b.config", "d2")),
+                        group(resource("config:c", "jcrinstall:/apps/c.config", "d2")),
+                        group(resource("config:d", "jcrinstall:/apps/d.config", "d3")),
+                        group(resource("config:e", "jcrinstall:/apps/e.config", null))),
+                // same resource registered twice is no duplicate
+                List.of(resource("file:f", "launchpad:f", "d4"), resource("file:f", "launchpad:f", "d4")));
+
+        final DigestIndex index = new DigestIndex(state);
+        assertEquals(7, index.getOccurrenceCount());
+        final Map<String, List<DigestIndex.Occurrence>> duplicates = index.getDuplicates();
+        assertEquals(List.of("d1", "d2"), List.copyOf(duplicates.keySet()));
+        assertEquals(
+                List.of(
+                        new DigestIndex.Occurrence("active", "bundle", "bundle:a", "jcrinstall:/apps/a/install/a.jar"),
+                        new DigestIndex.Occurrence("active", "bundle", "bundle:a", "jcrinstall:/libs/a/install/a.jar")),
+                duplicates.get("d1"));
+        assertEquals(
+                List.of(
+                        new DigestIndex.Occurrence("processed", "config", "config:b", "jcrinstall:/apps/b.config"),
+                        new DigestIndex.Occurrence("processed", "config", "config:c", "jcrinstall:/apps/c.config")),
+                duplicates.get("d2"));
+    }
+
+    @Test
+    void testEmptyState() {
+        final DigestIndex index = new DigestIndex(new StubInstallationState(List.of(), List.of(), List.of()));
+        assertEquals(0, index.getOccurrenceCount());
+        assertTrue(index.getDuplicates().isEmpty());
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.console;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.sling.installer.api.InstallableResource;
+import org.apache.sling.installer.api.info.ResourceGroup;
+import org.apache.sling.installer.api.tasks.RegisteredResource;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ */
+class InstallationSnapshotTest {
+
+    @Test
+    void testSnapshotByType() {
+        final StubInstallationState state = StubInstallationState.generate(100, 0);
+        final InstallationSnapshot snapshot = new InstallationSnapshot(state, 0);
+        assertEquals(100, snapshot.getResourceCount());
+
+        final SnapshotDictionary dictionary = snapshot.getDictionary();
+        final TypeBuckets<ResourceGroup> installed = snapshot.getInstalledByType();
+        assertEquals(
+                List.of(
+                        InstallableResource.TYPE_FILE,
+                        InstallableResource.TYPE_PROPERTIES,
+                        InstallableResource.TYPE_BUNDLE,
+                        InstallableResource.TYPE_CONFIG),
+                types(installed, dictionary));
+        assertEquals(80, installed.getItemCount());
+        // relative order within a type is kept
+        final List<ResourceGroup> configs = installed.get(dictionary.getCode(InstallableResource.TYPE_CONFIG));
+        assertEquals(
+                "config:org.example.entity5",
+                configs.get(0).getResources().get(0).getEntityId());
+        assertEquals(
+                "config:org.example.entity9",
+                configs.get(1).getResources().get(0).getEntityId());
+
+        final TypeBuckets<RegisteredResource> untransformed = snapshot.getUntransformedByType();
+        assertEquals(
+                List.of(InstallableResource.TYPE_BUNDLE, InstallableResource.TYPE_FILE),
+                types(untransformed, dictionary));
+        assertEquals(
+                5,
+                untransformed
+                        .get(dictionary.getCode(InstallableResource.TYPE_BUNDLE))
+                        .size());
+    }
+
+    private static List<String> types(final TypeBuckets<?> buckets, final SnapshotDictionary dictionary) {
+        final List<String> types = new ArrayList<>();
+        for (int i = 0; i < buckets.size(); i++) {
+            types.add(dictionary.getType(buckets.getCode(i)));
+        }
+        return types;
+    }
+}
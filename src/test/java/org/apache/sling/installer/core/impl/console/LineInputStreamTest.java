@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.console;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ */
+class LineInputStreamTest {
+
+    @Test
+    void testReadAll() throws IOException {
+        try (InputStream in = new LineInputStream(List.of("first", "", "üñí").iterator())) {
+            assertEquals("first\n\nüñí\n", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    void testReadSingleBytes() throws IOException {
+        final InputStream in = new LineInputStream(List.of("ab").iterator());
+        assertEquals('a', in.read());
+        assertEquals('b', in.read());
+        assertEquals('\n', in.read());
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    void testReadEmpty() throws IOException {
+        final InputStream in = new LineInputStream(List.<String>of().iterator());
+        assertEquals(0, in.read(new byte[1], 0, 0));
+        assertEquals(-1, in.read(new byte[1], 0, 1));
+    }
+
+    @Test
+    void testLinesAreRetrievedOnDemand() throws IOException {
+        final AtomicInteger retrieved = new AtomicInteger();
+        final Iterator<String> lines = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return retrieved.get() < 1000;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return "line" + retrieved.incrementAndGet();
+            }
+        };
+        final InputStream in = new LineInputStream(lines);
+        final byte[] buffer = new byte[8];
+        assertEquals(8, in.read(buffer));
+        assertEquals("line1\nli", new String(buffer, StandardCharsets.UTF_8));
+        assertEquals(2, retrieved.get());
+        in.readAllBytes();
+        assertEquals(1000, retrieved.get());
+    }
+}
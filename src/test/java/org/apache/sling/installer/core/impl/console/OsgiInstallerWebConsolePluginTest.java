@@ -18,12 +18,26 @@
  */
 package org.apache.sling.installer.core.impl.console;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintWriter;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.apache.sling.installer.api.InstallableResource;
 import org.apache.sling.installer.api.info.InfoProvider;
 import org.apache.sling.installer.api.info.InstallationState;
@@ -131,6 +145,621 @@ class OsgiInstallerWebConsolePluginTest {
         assertFalse(outputAsString.contains("no resources registered"));
     }
 
+    @Test
+    void testServiceWithInterleavedTypes() throws IOException {
+        // mock InfoProvider
+        final InstallationState mockInstallationState = mockInstallationState();
+        mockInterleavedActiveResources(mockInstallationState);
+
+        final @NotNull MockSlingJakartaHttpServletRequest req = resourcesRequest();
+        final @NotNull MockSlingJakartaHttpServletResponse resp = context.jakartaResponse();
+        plugin.service(req, resp);
+        final String outputAsString = resp.getOutputAsString();
+        // a single table per type, in order of the first appearance of the type
+        assertEquals(1, count(outputAsString, "id='active-Configurations'"));
+        assertEquals(1, count(outputAsString, "id='active-Properties'"));
+        assertEquals(1, count(outputAsString, "href='#active-Configurations'"));
+        final int test1 = outputAsString.indexOf("<td>test1</td>");
+        final int test2 = outputAsString.indexOf("<td>test2</td>");
+        final int test3 = outputAsString.indexOf("<td>test3</td>");
+        assertTrue(outputAsString.indexOf("id='active-Configurations'") < test1);
+        assertTrue(test1 < test2);
+        assertTrue(test2 < outputAsString.indexOf("id='active-Properties'"));
+        assertTrue(outputAsString.indexOf("id='active-Properties'") < test3);
+    }
+
+    @Test
+    void testServiceCollapsesAlternates() throws IOException {
+        // mock InfoProvider
+        final InstallationState mockInstallationState = mockInstallationState();
+        mockBasicInstalledResources(mockInstallationState);
+
+        final @NotNull MockSlingJakartaHttpServletRequest req = resourcesRequest();
+        final @NotNull MockSlingJakartaHttpServletResponse resp = context.jakartaResponse();
+        plugin.service(req, resp);
+        final String outputAsString = resp.getOutputAsString();
+        assertTrue(outputAsString.contains("1 alternate<"));
+        assertTrue(outputAsString.contains("group.json?id=config%3Afactory1%7Etest1"));
+        assertFalse(outputAsString.contains("url2"));
+    }
+
+    @Test
+    void testServiceReusesRenderedRows() throws IOException {
+        // mock InfoProvider
+        final InstallationState mockInstallationState = mockInstallationState();
+        final ResourceGroup group = Mockito.mock(ResourceGroup.class);
+        final Resource resource = mockInstallResoure(
+                InstallableResource.TYPE_BUNDLE,
+                ResourceState.INSTALL,
+                "bundle:test1",
+                "launchpad",
+                Map.of(),
+                null,
+                "url1",
+                null);
+        Mockito.doReturn("digest1").when(resource).getDigest();
+        Mockito.doReturn(List.of(resource)).when(group).getResources();
+        Mockito.doReturn(List.of(group)).when(mockInstallationState).getActiveResources();
+
+        MockSlingJakartaHttpServletResponse resp = context.jakartaResponse();
+        plugin.service(resourcesRequest(), resp);
+        final String firstOutput = resp.getOutputAsString();
+        assertTrue(firstOutput.contains("<td>digest1/0</td>"));
+        // once for the row version, once for rendering
+        Mockito.verify(resource, Mockito.times(2)).getDigest();
+
+        resp = new MockSlingJakartaHttpServletResponse();
+        plugin.service(resourcesRequest(), resp);
+        assertEquals(firstOutput, resp.getOutputAsString());
+        // only for the row version
+        Mockito.verify(resource, Mockito.times(3)).getDigest();
+
+        // changed resources are rendered again
+        Mockito.doReturn("digest2").when(resource).getDigest();
+        resp = new MockSlingJakartaHttpServletResponse();
+        plugin.service(resourcesRequest(), resp);
+        assertTrue(resp.getOutputAsString().contains("<td>digest2/0</td>"));
+    }
+
+    @Test
+    void testServiceDuplicatesView() throws IOException {
+        // mock InfoProvider
+        final InstallationState mockInstallationState = mockInstallationState();
+        mockBasicInstalledResources(mockInstallationState);
+        final RegisteredResource untransformed1 =
+                mockInstallRegisteredResource(InstallableResource.TYPE_FILE, "file:a", "launchpad", Map.of());
+        Mockito.doReturn("digest1").when(untransformed1).getDigest();
+        Mockito.doReturn("launchpad:a").when(untransformed1).getURL();
+        final RegisteredResource untransformed2 =
+                mockInstallRegisteredResource(InstallableResource.TYPE_FILE, "file:b", "launchpad", Map.of());
+        Mockito.doReturn("digest1").when(untransformed2).getDigest();
+        Mockito.doReturn("launchpad:b").when(untransformed2).getURL();
+        Mockito.doReturn(List.of(untransformed1, untransformed2))
+                .when(mockInstallationState)
+                .getUntransformedResources();
+
+        final @NotNull MockSlingJakartaHttpServletRequest req = context.jakartaRequest();
+        req.setParameterMap(Map.of("view", "duplicates"));
+        final @NotNull MockSlingJakartaHttpServletResponse resp = context.jakartaResponse();
+        plugin.service(req, resp);
+        final String outputAsString = resp.getOutputAsString();
+        assertTrue(outputAsString.contains("<b>Duplicates</b>"));
+        assertTrue(outputAsString.contains("1 digests are provided by more than one URL or entity id."));
+        assertTrue(
+                outputAsString.contains("<tr><td>digest1</td><td>a</td><td>launchpad:a</td><td>Untransformed</td></tr>"
+                        + "<tr><td></td><td>b</td><td>launchpad:b</td><td>Untransformed</td></tr>"));
+        assertFalse(outputAsString.contains("processed-Configurations"));
+    }
+
+    @Test
+    void testServiceDuplicatesViewWithExceededRowBudget() throws IOException {
+        plugin = context.registerInjectActivateService(OsgiInstallerWebConsolePlugin.class, "render.max.rows", 3);
+        // mock InfoProvider
+        final InstallationState mockInstallationState = mockInstallationState();
+        final List<RegisteredResource> untransformed = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            final RegisteredResource resource =
+                    mockInstallRegisteredResource(InstallableResource.TYPE_FILE, "file:" + i, "launchpad", Map.of());
+            Mockito.doReturn("digest1").when(resource).getDigest();
+            Mockito.doReturn("launchpad:" + i).when(resource).getURL();
+            untransformed.add(resource);
+        }
+        Mockito.doReturn(untransformed).when(mockInstallationState).getUntransformedResources();
+
+        final @NotNull MockSlingJakartaHttpServletRequest req = context.jakartaRequest();
+        req.setParameterMap(Map.of("view", "duplicates"));
+        final @NotNull MockSlingJakartaHttpServletResponse resp = context.jakartaResponse();
+        plugin.service(req, resp);
+        final String outputAsString = resp.getOutputAsString();
+        // the occurrences of a single digest are limited as well
+        assertTrue(outputAsString.contains("Output truncated, only the first 3 occurrences are shown."));
+        assertTrue(outputAsString.contains("launchpad:2"));
+        assertFalse(outputAsString.contains("launchpad:3"));
+        assertEquals(1, plugin.getFallbackCount());
+    }
+
+    @Test
+    void testServicePrioritiesView() throws IOException {
+        // mock InfoProvider
+        final InstallationState mockInstallationState = mockInstallationState();
+        mockBasicInstalledResources(mockInstallationState);
+
+        final @NotNull MockSlingJakartaHttpServletRequest req = context.jakartaRequest();
+        req.setParameterMap(Map.of("view", "priorities"));
+        final @NotNull MockSlingJakartaHttpServletResponse resp = context.jakartaResponse();
+        plugin.service(req, resp);
+        final String outputAsString = resp.getOutputAsString();
+        assertTrue(outputAsString.contains("<b>Priorities</b>"));
+        // both resources of the first group have no digest
+        assertTrue(outputAsString.contains("0 priority conflicts found"));
+        assertFalse(outputAsString.contains("processed-Configurations"));
+    }
+
+    @Test
+    void testServicePrioritiesViewWithConflict() throws IOException {
+        final StubInstallationState.StubResource winner = StubInstallationState.resource("bundle:org.example.a")
+                .withUrl("jcrinstall:/apps/a.jar")
+                .withDigest("d1")
+                .withPriority(100);
+        Mockito.doReturn(new StubInstallationState(
+                        List.of(),
+                        List.of(StubInstallationState.group(
+                                winner,
+                                winner.withUrl("launchpad:a.jar")
+                                        .withDigest("d2")
+                                        .withPriority(200))),
+                        List.of()))
+                .when(mockInfoProvider)
+                .getInstallationState();
+
+        final @NotNull MockSlingJakartaHttpServletRequest req = context.jakartaRequest();
+        req.setParameterMap(Map.of("view", "priorities"));
+        final @NotNull MockSlingJakartaHttpServletResponse resp = context.jakartaResponse();
+        plugin.service(req, resp);
+        final String outputAsString = resp.getOutputAsString();
+        assertTrue(outputAsString.contains("1 priority conflicts found"));
+        assertTrue(outputAsString.contains("<tr><td>Winner with lower priority</td><td>org.example.a</td>"
+                + "<td>Processed</td><td>d1/100</td><td>jcrinstall:/apps/a.jar</td>"
+                + "<td>d2/200</td><td>launchpad:a.jar</td></tr>"));
+    }
+
+    @Test
+    void testServiceReasonsView() throws IOException {
+        // mock InfoProvider
+        final InstallationState mockInstallationState = mockInstallationState();
+        mockBasicInstalledResources(mockInstallationState);
+
+        final @NotNull MockSlingJakartaHttpServletRequest req = context.jakartaRequest();
+        req.setParameterMap(Map.of("view", "reasons"));
+        final @NotNull MockSlingJakartaHttpServletResponse resp = context.jakartaResponse();
+        plugin.service(req, resp);
+        final String outputAsString = resp.getOutputAsString();
+        assertTrue(outputAsString.contains("<b>Reasons</b>"));
+        assertTrue(outputAsString.contains("2 distinct exclusion reasons and install infos of 1 active"));
+        // the entity ids are loaded on demand
+        assertTrue(outputAsString.contains("<tr><td>Excluded</td><td>1</td><td><details class='installer-reason' "
+                + "data-href='osgi-installer/reason.json?kind=EXCLUDED&amp;text=excluded1'><summary>excluded1</summary>"
+                + "</details></td></tr>"));
+        assertTrue(outputAsString.contains("<tr><td>Info</td><td>1</td><td><details class='installer-reason' "
+                + "data-href='osgi-installer/reason.json?kind=INFO&amp;text=info1'><summary>info1</summary>"));
+        assertFalse(outputAsString.contains("factory1~test1"));
+        assertFalse(outputAsString.contains("processed-Configurations"));
+    }
+
+    @Test
+    void testServiceReason() throws IOException {
+        // render on the calling thread
+        plugin = context.registerInjectActivateService(OsgiInstallerWebConsolePlugin.class, "render.async.threads", 0);
+        // mock InfoProvider
+        final InstallationState mockInstallationState = mockInstallationState();
+        mockBasicInstalledResources(mockInstallationState);
+
+        final @NotNull MockSlingJakartaHttpServletRequest req = context.jakartaRequest();
+        req.setPathInfo("/osgi-installer/reason.json");
+        req.setParameterMap(Map.of("kind", "EXCLUDED", "text", "excluded1"));
+        final @NotNull MockSlingJakartaHttpServletResponse resp = context.jakartaResponse();
+        plugin.service(req, resp);
+        assertEquals("application/json;charset=UTF-8", resp.getContentType());
+        assertEquals(
+                "{\"kind\":\"Excluded\",\"text\":\"excluded1\",\"truncated\":false,"
+                        + "\"entityIds\":[\"config:factory1~test1\"]}",
+                resp.getOutputAsString());
+    }
+
+    @Test
+    void testServiceReasonWithLimit() throws IOException {
+        plugin = context.registerInjectActivateService(OsgiInstallerWebConsolePlugin.class, "render.async.threads", 0);
+        // mock InfoProvider
+        Mockito.doReturn(StubInstallationState.generate(100, 0))
+                .when(mockInfoProvider)
+                .getInstallationState();
+
+        final @NotNull MockSlingJakartaHttpServletRequest req = context.jakartaRequest();
+        req.setPathInfo("/osgi-installer/reason.json");
+        req.setParameterMap(Map.of("kind", "INFO", "text", "installed by start level rule", "limit", "2"));
+        final @NotNull MockSlingJakartaHttpServletResponse resp = context.jakartaResponse();
+        plugin.service(req, resp);
+        assertEquals(
+                "{\"kind\":\"Info\",\"text\":\"installed by start level rule\",\"truncated\":true,"
+                        + "\"entityIds\":[\"properties:org.example.entity7\",\"file:org.example.entity14\"]}",
+                resp.getOutputAsString());
+    }
+
+    @Test
+    void testServiceReasonForUnknownReason() throws IOException {
+        // mock InfoProvider
+        final InstallationState mockInstallationState = mockInstallationState();
+        mockBasicInstalledResources(mockInstallationState);
+
+        final @NotNull MockSlingJakartaHttpServletRequest req = context.jakartaRequest();
+        req.setPathInfo("/osgi-installer/reason.json");
+        req.setParameterMap(Map.of("kind", "EXCLUDED", "text", "info1"));
+        final @NotNull MockSlingJakartaHttpServletResponse resp = context.jakartaResponse();
+        plugin.service(req, resp);
+        assertEquals(HttpServletResponse.SC_NOT_FOUND, resp.getStatus());
+
+        req.setParameterMap(Map.of("kind", "invalid", "text", "excluded1"));
+        final @NotNull MockSlingJakartaHttpServletResponse resp2 = new MockSlingJakartaHttpServletResponse();
+        plugin.service(req, resp2);
+        assertEquals(HttpServletResponse.SC_NOT_FOUND, resp2.getStatus());
+    }
+
+    @Test
+    void testServiceTimelineView() throws IOException {
+        // mock InfoProvider
+        final InstallationState mockInstallationState = mockInstallationState();
+        mockBasicInstalledResources(mockInstallationState);
+
+        final @NotNull MockSlingJakartaHttpServletRequest req = context.jakartaRequest();
+        req.setParameterMap(Map.of("view", "timeline"));
+        final @NotNull MockSlingJakartaHttpServletResponse resp = context.jakartaResponse();
+        plugin.service(req, resp);
+        final String outputAsString = resp.getOutputAsString();
+        assertTrue(outputAsString.contains("<b>Timeline</b>"));
+        // only the first resource of the first group has a last change
+        assertTrue(outputAsString.contains("1 most recent of 1 changes"));
+        assertTrue(outputAsString.contains("<td>factory1~test1\nalias1</td><td>Processed</td>"));
+        assertFalse(outputAsString.contains("processed-Configurations"));
+    }
+
+    @Test
+    void testServiceTimelineViewWithLimit() throws IOException {
+        // mock InfoProvider
+        final InstallationState mockInstallationState = mockInstallationState();
+        mockBasicInstalledResources(mockInstallationState);
+
+        final @NotNull MockSlingJakartaHttpServletRequest req = context.jakartaRequest();
+        req.setParameterMap(Map.of("view", "timeline", "limit", "0"));
+        final @NotNull MockSlingJakartaHttpServletResponse resp = context.jakartaResponse();
+        plugin.service(req, resp);
+        assertTrue(resp.getOutputAsString().contains("0 most recent of 1 changes"));
+
+        // invalid limits fall back to the default
+        req.setParameterMap(Map.of("view", "timeline", "limit", "all"));
+        final @NotNull MockSlingJakartaHttpServletResponse resp2 = new MockSlingJakartaHttpServletResponse();
+        plugin.service(req, resp2);
+        assertTrue(resp2.getOutputAsString().contains("1 most recent of 1 changes"));
+    }
+
+    @Test
+    void testServiceGroupDetail() throws IOException {
+        // render on the calling thread
+        plugin = context.registerInjectActivateService(OsgiInstallerWebConsolePlugin.class, "render.async.threads", 0);
+        // mock InfoProvider
+        final InstallationState mockInstallationState = mockInstallationState();
+        mockBasicInstalledResources(mockInstallationState);
+
+        final @NotNull MockSlingJakartaHttpServletRequest req = context.jakartaRequest();
+        req.setPathInfo("/osgi-installer/group.json");
+        req.setParameterMap(Map.of("id", "config:factory1~test1"));
+        final @NotNull MockSlingJakartaHttpServletResponse resp = context.jakartaResponse();
+        plugin.service(req, resp);
+        assertEquals("application/json;charset=UTF-8", resp.getContentType());
+        assertEquals(
+                "{\"id\":\"config:factory1~test1\",\"alternates\":["
+                        + "{\"info\":\"null/0\",\"url\":\"url2\",\"state\":\"INSTALLED\",\"error\":\"\"}]}",
+                resp.getOutputAsString());
+    }
+
+    @Test
+    void testServiceSearch() throws IOException {
+        // render on the calling thread
+        plugin = context.registerInjectActivateService(OsgiInstallerWebConsolePlugin.class, "render.async.threads", 0);
+        // mock InfoProvider
+        final InstallationState mockInstallationState = mockInstallationState();
+        mockBasicInstalledResources(mockInstallationState);
+
+        final @NotNull MockSlingJakartaHttpServletRequest req = context.jakartaRequest();
+        req.setPathInfo("/osgi-installer/search.json");
+        req.setParameterMap(Map.of("q", "Factory1"));
+        final @NotNull MockSlingJakartaHttpServletResponse resp = context.jakartaResponse();
+        plugin.service(req, resp);
+        assertEquals("application/json;charset=UTF-8", resp.getContentType());
+        assertEquals(
+                "{\"query\":\"Factory1\",\"mode\":\"prefix\",\"truncated\":false,\"results\":["
+                        + "{\"section\":\"Processed\",\"type\":\"Configurations\",\"entityId\":\"config:factory1~test1\","
+                        + "\"alias\":\"alias1\",\"url\":\"url1\",\"state\":\"EXCLUDED(*)\"}]}",
+                resp.getOutputAsString());
+    }
+
+    @Test
+    void testServiceSearchSubstringWithLimit() throws IOException {
+        // render on the calling thread
+        plugin = context.registerInjectActivateService(OsgiInstallerWebConsolePlugin.class, "render.async.threads", 0);
+        // mock InfoProvider
+        final InstallationState mockInstallationState = mockInstallationState();
+        mockBasicInstalledResources(mockInstallationState);
+
+        final @NotNull MockSlingJakartaHttpServletRequest req = context.jakartaRequest();
+        req.setPathInfo("/osgi-installer/search.json");
+        req.setParameterMap(Map.of("q", "test", "mode", "substring", "limit", "2"));
+        final @NotNull MockSlingJakartaHttpServletResponse resp = context.jakartaResponse();
+        plugin.service(req, resp);
+        final String outputAsString = resp.getOutputAsString();
+        assertTrue(outputAsString.startsWith("{\"query\":\"test\",\"mode\":\"substring\",\"truncated\":true,"));
+        assertEquals(2, outputAsString.split("\"section\"").length - 1);
+    }
+
+    @Test
+    void testServiceGroupDetailAsync() throws Exception {
+        // mock InfoProvider
+        final InstallationState mockInstallationState = mockInstallationState();
+        mockBasicInstalledResources(mockInstallationState);
+
+        final HttpServletRequest req = Mockito.mock(HttpServletRequest.class);
+        final HttpServletResponse resp = Mockito.mock(HttpServletResponse.class);
+        Mockito.doReturn("/osgi-installer/group.json").when(req).getPathInfo();
+        Mockito.doReturn("config:factory1~test1").when(req).getParameter("id");
+        Mockito.doReturn(true).when(req).isAsyncSupported();
+        final AsyncContext asyncContext = Mockito.mock(AsyncContext.class);
+        Mockito.doReturn(asyncContext).when(req).startAsync(req, resp);
+        Mockito.doReturn(resp).when(asyncContext).getResponse();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Mockito.doReturn(new ServletOutputStream() {
+                    @Override
+                    public boolean isReady() {
+                        return true;
+                    }
+
+                    @Override
+                    public void setWriteListener(final WriteListener writeListener) {
+                        try {
+                            writeListener.onWritePossible();
+                        } catch (final IOException e) {
+                            writeListener.onError(e);
+                        }
+                    }
+
+                    @Override
+                    public void write(final int b) {
+                        bytes.write(b);
+                    }
+                })
+                .when(resp)
+                .getOutputStream();
+        final CountDownLatch completed = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+                    completed.countDown();
+                    return null;
+                })
+                .when(asyncContext)
+                .complete();
+
+        plugin.service(req, resp);
+        Mockito.verify(req).startAsync(req, resp);
+        Mockito.verify(resp).setContentType("application/json");
+        assertTrue(completed.await(10, TimeUnit.SECONDS));
+        Mockito.verify(resp, Mockito.never()).getWriter();
+        Mockito.verify(resp, Mockito.never()).setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        assertEquals(
+                "{\"id\":\"config:factory1~test1\",\"alternates\":["
+                        + "{\"info\":\"null/0\",\"url\":\"url2\",\"state\":\"INSTALLED\",\"error\":\"\"}]}",
+                bytes.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testServiceGroupDetailForUnknownGroup() throws IOException {
+        // mock InfoProvider
+        final InstallationState mockInstallationState = mockInstallationState();
+        mockBasicInstalledResources(mockInstallationState);
+
+        final @NotNull MockSlingJakartaHttpServletRequest req = context.jakartaRequest();
+        req.setPathInfo("/osgi-installer/group.json");
+        req.setParameterMap(Map.of("id", "invalid"));
+        final @NotNull MockSlingJakartaHttpServletResponse resp = context.jakartaResponse();
+        plugin.service(req, resp);
+        assertEquals(HttpServletResponse.SC_NOT_FOUND, resp.getStatus());
+    }
+
+    @Test
+    void testServiceWithExceededRowBudget() throws IOException {
+        plugin = context.registerInjectActivateService(OsgiInstallerWebConsolePlugin.class, "render.max.rows", 2);
+        // mock InfoProvider
+        final InstallationState mockInstallationState = mockInstallationState();
+        mockBasicInstalledResources(mockInstallationState);
+
+        final @NotNull MockSlingJakartaHttpServletRequest req = resourcesRequest();
+        final @NotNull MockSlingJakartaHttpServletResponse resp = context.jakartaResponse();
+        plugin.service(req, resp);
+        final String outputAsString = resp.getOutputAsString();
+        assertTrue(outputAsString.contains("exceed the render budget of 2 rows"));
+        assertTrue(outputAsString.contains("?section=processed&amp;type=config'>Configurations</a> (2)"));
+        assertFalse(outputAsString.contains("nicetable"));
+        assertEquals(1, plugin.getFallbackCount());
+    }
+
+    @Test
+    void testServiceWithExceededSizeBudget() throws IOException {
+        plugin = context.registerInjectActivateService(OsgiInstallerWebConsolePlugin.class, "render.max.size", 10);
+        // mock InfoProvider
+        final InstallationState mockInstallationState = mockInstallationState();
+        mockBasicInstalledResources(mockInstallationState);
+
+        final @NotNull MockSlingJakartaHttpServletRequest req = resourcesRequest();
+        final @NotNull MockSlingJakartaHttpServletResponse resp = context.jakartaResponse();
+        plugin.service(req, resp);
+        final String outputAsString = resp.getOutputAsString();
+        assertTrue(outputAsString.contains("exceed the render budget"));
+        assertFalse(outputAsString.contains("nicetable"));
+        assertEquals(1, plugin.getFallbackCount());
+    }
+
+    @Test
+    void testServiceWithFilter() throws IOException {
+        plugin = context.registerInjectActivateService(OsgiInstallerWebConsolePlugin.class, "render.max.rows", 2);
+        // mock InfoProvider
+        final InstallationState mockInstallationState = mockInstallationState();
+        mockBasicInstalledResources(mockInstallationState);
+        mockBasicUntransformedResources(mockInstallationState);
+
+        final @NotNull MockSlingJakartaHttpServletRequest req = resourcesRequest();
+        req.setParameterMap(Map.of("section", "processed", "type", InstallableResource.TYPE_CONFIG));
+        final @NotNull MockSlingJakartaHttpServletResponse resp = context.jakartaResponse();
+        plugin.service(req, resp);
+        final String outputAsString = resp.getOutputAsString();
+        assertTrue(outputAsString.contains("processed-Configurations"));
+        assertFalse(outputAsString.contains("processed-Bundles"));
+        assertFalse(outputAsString.contains("Untransformed Resources"));
+        assertFalse(outputAsString.contains("Output truncated"));
+        assertEquals(0, plugin.getFallbackCount());
+    }
+
+    @Test
+    void testServiceWithFilterAndExceededRowBudget() throws IOException {
+        plugin = context.registerInjectActivateService(OsgiInstallerWebConsolePlugin.class, "render.max.rows", 1);
+        // mock InfoProvider
+        final InstallationState mockInstallationState = mockInstallationState();
+        mockBasicInstalledResources(mockInstallationState);
+
+        final @NotNull MockSlingJakartaHttpServletRequest req = resourcesRequest();
+        req.setParameterMap(Map.of("type", InstallableResource.TYPE_CONFIG));
+        final @NotNull MockSlingJakartaHttpServletResponse resp = context.jakartaResponse();
+        plugin.service(req, resp);
+        final String outputAsString = resp.getOutputAsString();
+        assertTrue(outputAsString.contains("Output truncated, only the first 1 resources are shown."));
+        assertTrue(outputAsString.contains("factory1~test1"));
+        assertFalse(outputAsString.contains("test3"));
+        assertEquals(1, plugin.getFallbackCount());
+    }
+
+    @Test
+    void testServiceLoadsResources() throws IOException {
+        // mock InfoProvider
+        final InstallationState mockInstallationState = mockInstallationState();
+        mockBasicInstalledResources(mockInstallationState);
+
+        final @NotNull MockSlingJakartaHttpServletRequest req = context.jakartaRequest();
+        req.setParameterMap(Map.of("section", "processed", "type", InstallableResource.TYPE_CONFIG));
+        final @NotNull MockSlingJakartaHttpServletResponse resp = context.jakartaResponse();
+        plugin.service(req, resp);
+        final String outputAsString = resp.getOutputAsString();
+        // the tables are not rendered on the container thread
+        assertTrue(outputAsString.contains("<div class='installer-resources' "
+                + "data-href='osgi-installer/resources.fragment?section=processed&amp;type=config'>"));
+        assertFalse(outputAsString.contains("nicetable"));
+        assertFalse(outputAsString.contains("factory1~test1"));
+    }
+
+    @Test
+    void testServiceResourcesAsyncWithSlowReader() throws Exception {
+        // mock InfoProvider
+        Mockito.doReturn(StubInstallationState.generate(1000, 1_700_000_000_000L))
+                .when(mockInfoProvider)
+                .getInstallationState();
+        final MockSlingJakartaHttpServletResponse expected = context.jakartaResponse();
+        plugin.service(resourcesRequest(), expected);
+
+        final HttpServletRequest req = Mockito.mock(HttpServletRequest.class);
+        final HttpServletResponse resp = Mockito.mock(HttpServletResponse.class);
+        Mockito.doReturn("/osgi-installer/resources.fragment").when(req).getPathInfo();
+        Mockito.doReturn(true).when(req).isAsyncSupported();
+        final AsyncContext asyncContext = Mockito.mock(AsyncContext.class);
+        Mockito.doReturn(asyncContext).when(req).startAsync(req, resp);
+        Mockito.doReturn(resp).when(asyncContext).getResponse();
+        final ExecutorService container = Executors.newSingleThreadExecutor();
+        try {
+            final AsyncResponseWriterTest.AlternatingOutputStream out =
+                    new AsyncResponseWriterTest.AlternatingOutputStream(container);
+            Mockito.doReturn(out).when(resp).getOutputStream();
+            final CountDownLatch completed = new CountDownLatch(1);
+            Mockito.doAnswer(invocation -> {
+                        completed.countDown();
+                        return null;
+                    })
+                    .when(asyncContext)
+                    .complete();
+
+            plugin.service(req, resp);
+            Mockito.verify(req).startAsync(req, resp);
+            Mockito.verify(resp).setContentType("text/html");
+            assertTrue(completed.await(10, TimeUnit.SECONDS));
+            Mockito.verify(resp, Mockito.never()).getWriter();
+            Mockito.verify(asyncContext, Mockito.times(1)).complete();
+            assertTrue(out.getNotReadyCount() > 0);
+            assertEquals(expected.getOutputAsString(), out.toString(StandardCharsets.UTF_8));
+        } finally {
+            container.shutdownNow();
+        }
+    }
+
+    @Test
+    void testPrintConfigurationWithExceededRowBudget() {
+        plugin = context.registerInjectActivateService(OsgiInstallerWebConsolePlugin.class, "render.max.rows", 2);
+        // mock InfoProvider
+        final InstallationState mockInstallationState = mockInstallationState();
+        mockBasicInstalledResources(mockInstallationState);
+
+        final @NotNull MockSlingJakartaHttpServletResponse resp = context.jakartaResponse();
+        final PrintWriter pw = resp.getWriter();
+        plugin.printConfiguration(pw, "txt");
+        final String outputAsString = resp.getOutputAsString();
+        assertTrue(outputAsString.contains("5 resources exceed the render budget of 2 rows"));
+        assertTrue(outputAsString.contains("Configurations: 2"));
+        assertFalse(outputAsString.contains("url1"));
+        assertEquals(1, plugin.getFallbackCount());
+    }
+
+    @Test
+    void testPrintConfigurationWithAlternatesExceedingRowBudget() {
+        plugin = context.registerInjectActivateService(OsgiInstallerWebConsolePlugin.class, "render.max.rows", 5);
+        final List<Resource> resources = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            resources.add(StubInstallationState.resource("bundle:org.example.a")
+                    .withUrl("jcrinstall:/apps/install" + i + "/a.jar")
+                    .withDigest("d" + i));
+        }
+        Mockito.doReturn(new StubInstallationState(
+                        List.of(), List.of(StubInstallationState.group(resources.toArray(new Resource[0]))), List.of()))
+                .when(mockInfoProvider)
+                .getInstallationState();
+
+        final @NotNull MockSlingJakartaHttpServletResponse resp = context.jakartaResponse();
+        final PrintWriter pw = resp.getWriter();
+        plugin.printConfiguration(pw, "txt");
+        final String outputAsString = resp.getOutputAsString();
+        // the group fits into the budget, but its alternates do not
+        assertTrue(outputAsString.contains("jcrinstall:/apps/install4/a.jar"));
+        assertFalse(outputAsString.contains("jcrinstall:/apps/install5/a.jar"));
+        assertTrue(outputAsString.contains("Output truncated after 5 resources"));
+        assertEquals(1, plugin.getFallbackCount());
+    }
+
+    @Test
+    void testPrintConfigurationWithExceededSizeBudget() {
+        plugin = context.registerInjectActivateService(OsgiInstallerWebConsolePlugin.class, "render.max.size", 150);
+        // mock InfoProvider
+        final InstallationState mockInstallationState = mockInstallationState();
+        mockBasicInstalledResources(mockInstallationState);
+
+        final @NotNull MockSlingJakartaHttpServletResponse resp = context.jakartaResponse();
+        final PrintWriter pw = resp.getWriter();
+        plugin.printConfiguration(pw, "txt");
+        final String outputAsString = resp.getOutputAsString();
+        assertTrue(outputAsString.contains("Output truncated after 1 resources"));
+        assertFalse(outputAsString.contains("test3"));
+        assertEquals(1, plugin.getFallbackCount());
+    }
+
     /**
      * Test method for {@link org.apache.sling.installer.core.impl.console.OsgiInstallerWebConsolePlugin#printConfiguration(java.io.PrintWriter, java.lang.String)}.
      */
@@ -177,6 +806,70 @@ class OsgiInstallerWebConsolePluginTest {
         assertTrue(outputAsString.contains("Apache Sling OSGi Installer"));
     }
 
+    @Test
+    void testPrintConfigurationWithInterleavedTypes() {
+        // mock InfoProvider
+        final InstallationState mockInstallationState = mockInstallationState();
+        mockInterleavedActiveResources(mockInstallationState);
+
+        final @NotNull MockSlingJakartaHttpServletResponse resp = context.jakartaResponse();
+        final PrintWriter pw = resp.getWriter();
+        plugin.printConfiguration(pw, "txt");
+        final String outputAsString = resp.getOutputAsString();
+        assertEquals(1, count(outputAsString, "Configurations:"));
+        assertEquals(1, count(outputAsString, "Properties:"));
+        assertTrue(outputAsString.indexOf("- test2:") < outputAsString.indexOf("Properties:"));
+    }
+
+    @Test
+    void testGetAttachments() throws IOException {
+        // mock InfoProvider
+        final InstallationState mockInstallationState = mockInstallationState();
+        mockBasicActiveResources(mockInstallationState);
+        mockBasicInstalledResources(mockInstallationState);
+        mockBasicUntransformedResources(mockInstallationState);
+
+        assertNull(plugin.getAttachments("txt"));
+        final URL[] attachments = plugin.getAttachments("zip");
+        assertEquals(2, attachments.length);
+        assertTrue(attachments[0].getPath().endsWith("/osgi-installer-summary.json"));
+        assertTrue(attachments[1].getPath().endsWith("/osgi-installer-state.ndjson"));
+
+        final String summary = read(attachments[0]);
+        assertTrue(summary.startsWith("{\"resources\":11,\"sections\":{\"active\":{\"config\":2,\"properties\":1},"));
+        assertTrue(summary.contains("\"states\":{\"INSTALLED\":7,\"UNINSTALLED\":1}"));
+        assertTrue(summary.endsWith("\n"));
+
+        final String[] records = read(attachments[1]).split("\n");
+        // three active, five processed groups with one alternate, three untransformed
+        assertEquals(12, records.length);
+        assertEquals(
+                "{\"section\":\"processed\",\"type\":\"config\",\"entityId\":\"config:factory1~test1\","
+                        + "\"alias\":\"alias1\",\"index\":0,\"url\":\"url1\",\"digest\":null,\"priority\":0,"
+                        + "\"state\":\"INSTALLED\",\"version\":\"1.0.0\",\"lastChange\":"
+                        + mockInstallationState
+                                .getInstalledResources()
+                                .get(0)
+                                .getResources()
+                                .get(0)
+                                .getLastChange()
+                        + ",\"error\":\"error1\",\"excluded\":\"excluded1\",\"info\":\"info1\"}",
+                records[3]);
+        assertTrue(records[4].contains("\"entityId\":\"test2\",\"alias\":\"alias1\",\"index\":1,"));
+        assertEquals(
+                "{\"section\":\"untransformed\",\"type\":\"config\",\"entityId\":\"test1\",\"alias\":null,"
+                        + "\"index\":0,\"url\":null,\"digest\":null,\"priority\":0}",
+                records[9]);
+        // the content is created again whenever an attachment is opened
+        assertEquals(12, read(attachments[1]).split("\n").length);
+    }
+
+    private static String read(final URL url) throws IOException {
+        try (InputStream in = url.openStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
     @Test
     void testPrintConfigurationForInvalidMode() {
         final @NotNull MockSlingJakartaHttpServletResponse resp = context.jakartaResponse();
@@ -187,6 +880,30 @@ class OsgiInstallerWebConsolePluginTest {
         assertTrue(outputAsString.isEmpty());
     }
 
+    private static int count(final String text, final String part) {
+        int count = 0;
+        for (int pos = text.indexOf(part); pos != -1; pos = text.indexOf(part, pos + part.length())) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Request of the resource tables, rendered on the calling thread.
+     */
+    private MockSlingJakartaHttpServletRequest resourcesRequest() {
+        // the mock request does not implement isAsyncSupported
+        final MockSlingJakartaHttpServletRequest req =
+                new MockSlingJakartaHttpServletRequest(context.resourceResolver(), context.bundleContext()) {
+                    @Override
+                    public boolean isAsyncSupported() {
+                        return false;
+                    }
+                };
+        req.setPathInfo("/osgi-installer/resources.fragment");
+        return req;
+    }
+
     private InstallationState mockInstallationState() {
         InstallationState mockInstallationState = Mockito.mock(InstallationState.class);
         Mockito.doReturn(mockInstallationState).when(mockInfoProvider).getInstallationState();
@@ -388,4 +1105,21 @@ class OsgiInstallerWebConsolePluginTest {
                 .when(mockInstallationState)
                 .getActiveResources();
     }
+
+    private void mockInterleavedActiveResources(final InstallationState mockInstallationState) {
+        // the types alternate between the groups
+        final List<ResourceGroup> groups = List.of(
+                mockActiveGroup(InstallableResource.TYPE_CONFIG, "config:test1"),
+                mockActiveGroup(InstallableResource.TYPE_PROPERTIES, "test3"),
+                mockActiveGroup(InstallableResource.TYPE_CONFIG, "config:test2"));
+        Mockito.doReturn(groups).when(mockInstallationState).getActiveResources();
+    }
+
+    private ResourceGroup mockActiveGroup(final String type, final String entityId) {
+        final ResourceGroup group = Mockito.mock(ResourceGroup.class);
+        final Resource resource =
+                mockInstallResoure(type, ResourceState.INSTALL, entityId, "launchpad", Map.of(), null, null, null);
+        Mockito.doReturn(List.of(resource)).when(group).getResources();
+        return group;
+    }
 }
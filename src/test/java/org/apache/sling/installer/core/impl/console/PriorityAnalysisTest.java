@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.console;
+
+import java.util.List;
+
+import org.apache.sling.installer.api.info.InstallationState;
+import org.apache.sling.installer.api.info.Resource;
+import org.apache.sling.installer.core.impl.console.StubInstallationState.StubResource;
+import org.junit.jupiter.api.Test;
+import org.osgi.framework.Version;
+
+import static org.apache.sling.installer.core.impl.console.StubInstallationState.group;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ */
+class PriorityAnalysisTest {
+
+    private static StubResource resource(
+            final String url, final String digest, final int priority, final Version version) {
+        return StubInstallationState.resource("bundle:a")
+                .withUrl(url)
+                .withDigest(digest)
+                .withPriority(priority)
+                .withVersion(version);
+    }
+
+    @Test
+    void testConflicts() {
+        final Resource tieWinner = resource("jcrinstall:/apps/a1.jar", "d1", 100, null);
+        final Resource tieAlternate = resource("jcrinstall:/apps/a2.jar", "d2", 100, null);
+        final Resource sameDigest = resource("jcrinstall:/apps/a3.jar", "d1", 100, null);
+        final Resource shadowingWinner = resource("jcrinstall:/apps/a4.jar", "d3", 200, new Version(1, 0, 0));
+        final Resource shadowedAlternate = resource("jcrinstall:/apps/a5.jar", "d4", 100, new Version(1, 1, 0));
+        final Resource lowerWinner = resource("jcrinstall:/apps/a6.jar", "d5", 50, null);
+        final Resource higherAlternate = resource("jcrinstall:/apps/a7.jar", "d6", 150, null);
+
+        final InstallationState state = new StubInstallationState(
+                List.of(group(tieWinner, tieAlternate, sameDigest)),
+                List.of(
+                        group(shadowingWinner, shadowedAlternate),
+                        group(lowerWinner, higherAlternate),
+                        group(resource("jcrinstall:/apps/a8.jar", "d7", 100, null)),
+                        group()),
+                List.of());
+
+        final PriorityAnalysis analysis = new PriorityAnalysis(state, 0);
+        assertEquals(
+                List.of(
+                        new PriorityAnalysis.Conflict(
+                                PriorityAnalysis.Kind.PRIORITY_TIE, "active", tieWinner, tieAlternate),
+                        new PriorityAnalysis.Conflict(
+                                PriorityAnalysis.Kind.SHADOWED_VERSION,
+                                "processed",
+                                shadowingWinner,
+                                shadowedAlternate),
+                        new PriorityAnalysis.Conflict(
+                                PriorityAnalysis.Kind.LOWER_PRIORITY_WINNER,
+                                "processed",
+                                lowerWinner,
+                                higherAlternate)),
+                analysis.getConflicts());
+    }
+
+    @Test
+    void testTolerance() {
+        final Resource winner = resource("jcrinstall:/apps/a1.jar", "d1", 200, null);
+        final Resource alternate = resource("jcrinstall:/apps/a2.jar", "d2", 199, null);
+        final InstallationState state =
+                new StubInstallationState(List.of(), List.of(group(winner, alternate)), List.of());
+
+        assertTrue(new PriorityAnalysis(state, 0).getConflicts().isEmpty());
+        final PriorityAnalysis analysis = new PriorityAnalysis(state, 1);
+        assertEquals(1, analysis.getTolerance());
+        assertEquals(
+                List.of(new PriorityAnalysis.Conflict(
+                        PriorityAnalysis.Kind.PRIORITY_TIE, "processed", winner, alternate)),
+                analysis.getConflicts());
+    }
+
+    @Test
+    void testKindsAreExclusiveWithTolerance() {
+        final Resource winner = resource("jcrinstall:/apps/a1.jar", "d1", 200, new Version(1, 0, 0));
+        // within the tolerance, but with a higher priority and version
+        final Resource higher = resource("jcrinstall:/apps/a2.jar", "d2", 205, new Version(2, 0, 0));
+        final Resource tie = resource("jcrinstall:/apps/a3.jar", "d3", 195, new Version(2, 0, 0));
+        // the same artifact from another URL
+        final Resource sameDigestHigher = resource("jcrinstall:/apps/a4.jar", "d1", 300, null);
+        final Resource sameDigestNewer = resource("jcrinstall:/apps/a5.jar", "d1", 200, new Version(1, 1, 0));
+        final InstallationState state = new StubInstallationState(
+                List.of(), List.of(group(winner, higher, tie, sameDigestHigher, sameDigestNewer)), List.of());
+
+        assertEquals(
+                List.of(
+                        new PriorityAnalysis.Conflict(
+                                PriorityAnalysis.Kind.LOWER_PRIORITY_WINNER, "processed", winner, higher),
+                        new PriorityAnalysis.Conflict(PriorityAnalysis.Kind.PRIORITY_TIE, "processed", winner, tie),
+                        new PriorityAnalysis.Conflict(
+                                PriorityAnalysis.Kind.SHADOWED_VERSION, "processed", winner, sameDigestNewer)),
+                new PriorityAnalysis(state, 10).getConflicts());
+    }
+}
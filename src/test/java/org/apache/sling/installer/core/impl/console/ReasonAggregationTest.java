@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.console;
+
+import java.util.List;
+
+import org.apache.sling.installer.api.info.InstallationState;
+import org.apache.sling.installer.api.tasks.TaskResource;
+import org.apache.sling.installer.core.impl.console.StubInstallationState.StubResource;
+import org.junit.jupiter.api.Test;
+
+import static org.apache.sling.installer.core.impl.console.StubInstallationState.group;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ */
+class ReasonAggregationTest {
+
+    private static StubResource resource(final String entityId, final Object excluded, final Object info) {
+        return StubInstallationState.resource(entityId)
+                .withAttribute(TaskResource.ATTR_INSTALL_EXCLUDED, excluded)
+                .withAttribute(TaskResource.ATTR_INSTALL_INFO, info);
+    }
+
+    @Test
+    void testReasons() {
+        final InstallationState state = new StubInstallationState(
+                List.of(group(resource("a", null, "updated"))),
+                List.of(
+                        group(resource("b", new StringBuilder("start level"), null)),
+                        // only the first resource of a group is considered
+                        group(resource("c", "start level", "updated"), resource("c", "other alternate", null)),
+                        group(resource("d", null, null)),
+                        group(resource("e", "start level", null)),
+                        group()),
+                List.of());
+
+        final ReasonAggregation aggregation = new ReasonAggregation(state);
+        assertEquals(4, aggregation.getResourceCount());
+        final List<ReasonAggregation.Reason> reasons = aggregation.getReasons();
+        assertEquals(2, reasons.size());
+
+        assertEquals(ReasonAggregation.Kind.EXCLUDED, reasons.get(0).getKind());
+        assertEquals("start level", reasons.get(0).getText());
+        assertEquals(3, reasons.get(0).getCount());
+        assertEquals(List.of("b", "c", "e"), reasons.get(0).getEntityIds());
+
+        assertEquals(ReasonAggregation.Kind.INFO, reasons.get(1).getKind());
+        assertEquals("updated", reasons.get(1).getText());
+        assertEquals(List.of("a", "c"), reasons.get(1).getEntityIds());
+
+        assertSame(reasons.get(0), aggregation.getReason(ReasonAggregation.Kind.EXCLUDED, "start level"));
+        assertSame(reasons.get(1), aggregation.getReason(ReasonAggregation.Kind.INFO, "updated"));
+        assertNull(aggregation.getReason(ReasonAggregation.Kind.INFO, "start level"));
+    }
+
+    @Test
+    void testSameTextOfDifferentKinds() {
+        final InstallationState state =
+                new StubInstallationState(List.of(), List.of(group(resource("a", "text", "text"))), List.of());
+        final ReasonAggregation aggregation = new ReasonAggregation(state);
+        assertEquals(1, aggregation.getResourceCount());
+        assertEquals(2, aggregation.getReasons().size());
+    }
+
+    @Test
+    void testEmpty() {
+        final ReasonAggregation aggregation =
+                new ReasonAggregation(new StubInstallationState(List.of(), List.of(), List.of()));
+        assertTrue(aggregation.getReasons().isEmpty());
+        assertEquals(0, aggregation.getResourceCount());
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.console;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import org.apache.sling.installer.api.info.InfoProvider;
+import org.apache.sling.testing.mock.sling.junit5.SlingContext;
+import org.apache.sling.testing.mock.sling.junit5.SlingContextExtension;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingJakartaHttpServletRequest;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingJakartaHttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures rendering a large installation state. Only run on request, with
+ * {@code mvn test -Dbenchmark=true -Dtest=RenderBenchmarkTest}.
+ */
+@ExtendWith(SlingContextExtension.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class RenderBenchmarkTest {
+
+    private static final int RESOURCES = 100_000;
+
+    private static final int WARMUP = 5;
+
+    private static final int ITERATIONS = 10;
+
+    /** Fixed time of the most recent change, for reproducible output. */
+    private static final long TIME = 1_700_000_000_000L;
+
+    public final SlingContext context = new SlingContext();
+
+    private OsgiInstallerWebConsolePlugin plugin;
+
+    private StubInstallationState state;
+
+    @FunctionalInterface
+    private interface Render {
+        String run() throws IOException;
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        state = StubInstallationState.generate(RESOURCES, TIME);
+        context.registerService(InfoProvider.class, () -> state);
+        // measure the rendering itself, without budget, cache or async rendering
+        plugin = context.registerInjectActivateService(
+                OsgiInstallerWebConsolePlugin.class,
+                "snapshot.max.age",
+                Long.MAX_VALUE,
+                "render.max.rows",
+                0,
+                "render.max.size",
+                0,
+                "render.cache.size",
+                0,
+                "render.async.threads",
+                0);
+    }
+
+    @Test
+    void benchmarkService() throws IOException {
+        measure("service", () -> {
+            final MockSlingJakartaHttpServletRequest req = context.jakartaRequest();
+            req.setPathInfo("/osgi-installer" + OsgiInstallerWebConsolePlugin.RESOURCES_SUFFIX);
+            final MockSlingJakartaHttpServletResponse resp = new MockSlingJakartaHttpServletResponse();
+            plugin.service(req, resp);
+            return resp.getOutputAsString();
+        });
+    }
+
+    @Test
+    void benchmarkPrintConfiguration() throws IOException {
+        measure("printConfiguration", () -> {
+            final StringWriter writer = new StringWriter();
+            plugin.printConfiguration(new PrintWriter(writer), "txt");
+            return writer.toString();
+        });
+    }
+
+    @Test
+    void benchmarkSearch() {
+        for (int i = 0; i < WARMUP; i++) {
+            new SearchIndex(state);
+        }
+        final long start = System.nanoTime();
+        final SearchIndex index = new SearchIndex(state);
+        final long build = System.nanoTime() - start;
+        final String[] queries = {
+            "org.example.entity4711", "org.example.entity9", "entity", "org.apache", "install/entity123", "missing"
+        };
+        for (int i = 0; i < WARMUP * 100; i++) {
+            for (final String query : queries) {
+                index.findPrefix(query, 50);
+                index.findSubstring(query, 50);
+            }
+        }
+        System.out.printf(
+                "search: %d documents, %.1f ms to build the index%n", index.getDocumentCount(), build / 1_000_000.0);
+        for (final String query : queries) {
+            final long[] prefix = new long[ITERATIONS * 100];
+            final long[] substring = new long[prefix.length];
+            int prefixCount = 0;
+            int substringCount = 0;
+            for (int i = 0; i < prefix.length; i++) {
+                long t = System.nanoTime();
+                prefixCount = index.findPrefix(query, 50).documents().size();
+                prefix[i] = System.nanoTime() - t;
+                t = System.nanoTime();
+                substringCount = index.findSubstring(query, 50).documents().size();
+                substring[i] = System.nanoTime() - t;
+            }
+            Arrays.sort(prefix);
+            Arrays.sort(substring);
+            System.out.printf(
+                    "search '%s': prefix %d results, p50 %.1f us, p99 %.1f us; substring %d results, p50 %.1f us, p99 %.1f us%n",
+                    query,
+                    prefixCount,
+                    prefix[prefix.length / 2] / 1000.0,
+                    prefix[prefix.length * 99 / 100] / 1000.0,
+                    substringCount,
+                    substring[substring.length / 2] / 1000.0,
+                    substring[substring.length * 99 / 100] / 1000.0);
+        }
+    }
+
+    private static void measure(final String name, final Render render) throws IOException {
+        for (int i = 0; i < WARMUP; i++) {
+            render.run();
+        }
+        final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long thread = Thread.currentThread().getId();
+        final long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        final long start = System.nanoTime();
+        String output = null;
+        for (int i = 0; i < ITERATIONS; i++) {
+            output = render.run();
+        }
+        final long nanos = System.nanoTime() - start;
+        final long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+        assertFalse(output.isEmpty());
+        // the digest allows to compare the output of different implementations
+        final byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(output.getBytes(StandardCharsets.UTF_8));
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        System.out.printf(
+                "%s: %d resources, %.1f ms/render, %d bytes allocated/resource, %d characters, sha-256 %s%n",
+                name,
+                RESOURCES,
+                nanos / 1_000_000.0 / ITERATIONS,
+                allocated / ITERATIONS / RESOURCES,
+                output.length(),
+                HexFormat.of().formatHex(digest));
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.console;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ */
+class RenderBudgetTest {
+
+    @Test
+    void testUnlimited() {
+        final RenderBudget budget = new RenderBudget(0, 0, () -> Integer.MAX_VALUE);
+        assertTrue(budget.fits(Integer.MAX_VALUE));
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(budget.acquireRow());
+        }
+        assertFalse(budget.isExhausted());
+        assertEquals(1000, budget.getRows());
+    }
+
+    @Test
+    void testMaxRows() {
+        final RenderBudget budget = new RenderBudget(2, 0, () -> 0);
+        assertTrue(budget.fits(2));
+        assertFalse(budget.fits(3));
+        assertTrue(budget.acquireRow());
+        assertTrue(budget.acquireRow());
+        assertFalse(budget.isExhausted());
+        assertFalse(budget.acquireRow());
+        assertTrue(budget.isExhausted());
+        assertEquals(2, budget.getRows());
+    }
+
+    @Test
+    void testMaxSize() {
+        final AtomicInteger size = new AtomicInteger();
+        final RenderBudget budget = new RenderBudget(0, 100, size::get);
+        assertTrue(budget.acquireRow());
+        size.set(99);
+        assertTrue(budget.acquireRow());
+        size.set(100);
+        assertFalse(budget.acquireRow());
+        // stays exhausted
+        size.set(0);
+        assertFalse(budget.acquireRow());
+        assertEquals(2, budget.getRows());
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.console;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.sling.installer.api.info.Resource;
+import org.apache.sling.installer.api.tasks.ResourceState;
+import org.apache.sling.installer.api.tasks.TaskResource;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ */
+class RowFragmentCacheTest {
+
+    private static RowFragmentCache.RowVersion version(final String digest, final ResourceState state) {
+        return new RowFragmentCache.RowVersion(null, "url", null, digest, 100, state, 0, null, null, null);
+    }
+
+    @Test
+    void testGetForChangedVersion() {
+        final RowFragmentCache cache = new RowFragmentCache(10);
+        cache.put("active", "bundle:a", version("1", ResourceState.INSTALL), "row1");
+        assertEquals("row1", cache.get("active", "bundle:a", version("1", ResourceState.INSTALL)));
+        assertNull(cache.get("processed", "bundle:a", version("1", ResourceState.INSTALL)));
+        assertNull(cache.get("active", "bundle:a", version("1", ResourceState.INSTALLED)));
+        assertNull(cache.get("active", "bundle:a", version("2", ResourceState.INSTALL)));
+
+        // a new version replaces the old one
+        cache.put("active", "bundle:a", version("2", ResourceState.INSTALL), "row2");
+        assertEquals(1, cache.size());
+        assertNull(cache.get("active", "bundle:a", version("1", ResourceState.INSTALL)));
+        assertEquals("row2", cache.get("active", "bundle:a", version("2", ResourceState.INSTALL)));
+    }
+
+    @Test
+    void testLeastRecentlyUsedEviction() {
+        final RowFragmentCache cache = new RowFragmentCache(2);
+        cache.put("active", "bundle:a", version("1", ResourceState.INSTALL), "a");
+        cache.put("active", "bundle:b", version("1", ResourceState.INSTALL), "b");
+        assertEquals("a", cache.get("active", "bundle:a", version("1", ResourceState.INSTALL)));
+        cache.put("active", "bundle:c", version("1", ResourceState.INSTALL), "c");
+        assertEquals(2, cache.size());
+        assertEquals("a", cache.get("active", "bundle:a", version("1", ResourceState.INSTALL)));
+        assertNull(cache.get("active", "bundle:b", version("1", ResourceState.INSTALL)));
+        assertEquals("c", cache.get("active", "bundle:c", version("1", ResourceState.INSTALL)));
+    }
+
+    @Test
+    void testEvictionRemovesLeastRecentlyUsedTenth() {
+        final RowFragmentCache cache = new RowFragmentCache(100);
+        for (int i = 0; i < 100; i++) {
+            cache.put("active", "bundle:" + i, version("1", ResourceState.INSTALL), "row" + i);
+        }
+        // use the first half again
+        for (int i = 0; i < 50; i++) {
+            assertEquals("row" + i, cache.get("active", "bundle:" + i, version("1", ResourceState.INSTALL)));
+        }
+        cache.put("active", "bundle:100", version("1", ResourceState.INSTALL), "row100");
+        assertEquals(90, cache.size());
+        for (int i = 50; i < 61; i++) {
+            assertNull(cache.get("active", "bundle:" + i, version("1", ResourceState.INSTALL)));
+        }
+        for (int i = 0; i < 50; i++) {
+            assertEquals("row" + i, cache.get("active", "bundle:" + i, version("1", ResourceState.INSTALL)));
+        }
+        assertEquals("row100", cache.get("active", "bundle:100", version("1", ResourceState.INSTALL)));
+    }
+
+    @Test
+    void testConcurrentUse() throws InterruptedException {
+        final RowFragmentCache cache = new RowFragmentCache(50);
+        final List<Thread> threads = new ArrayList<>();
+        final AtomicInteger failures = new AtomicInteger();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    final String entityId = "bundle:" + (i % 200);
+                    final String row = cache.get("active", entityId, version("1", ResourceState.INSTALL));
+                    if (row == null) {
+                        cache.put("active", entityId, version("1", ResourceState.INSTALL), entityId);
+                    } else if (!row.equals(entityId)) {
+                        failures.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, failures.get());
+        assertTrue(cache.size() <= 50, "size " + cache.size());
+    }
+
+    @Test
+    void testRetainAll() {
+        final RowFragmentCache cache = new RowFragmentCache(10);
+        cache.put("active", "bundle:a", version("1", ResourceState.INSTALL), "a");
+        cache.put("processed", "bundle:b", version("1", ResourceState.INSTALLED), "b");
+        cache.retainAll(Set.of("bundle:b")::contains);
+        assertEquals(1, cache.size());
+        assertEquals("b", cache.get("processed", "bundle:b", version("1", ResourceState.INSTALLED)));
+    }
+
+    @Test
+    void testRowVersionOf() {
+        final Resource resource = Mockito.mock(Resource.class);
+        Mockito.doReturn("url").when(resource).getURL();
+        Mockito.doReturn("digest").when(resource).getDigest();
+        Mockito.doReturn(ResourceState.INSTALLED).when(resource).getState();
+        Mockito.doReturn("excluded").when(resource).getAttribute(TaskResource.ATTR_INSTALL_EXCLUDED);
+        final RowFragmentCache.RowVersion version = RowFragmentCache.RowVersion.of(resource, "alias");
+        assertEquals(
+                new RowFragmentCache.RowVersion(
+                        "alias", "url", null, "digest", 0, ResourceState.INSTALLED, 0, null, "excluded", null),
+                version);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.console;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ */
+class RowTemplateTest {
+
+    private static final String[][] VALUES = {
+        {"a", "b"}, {"", ""}, {null, "b"}, {"<a href='x'>", "\"&\""}, {"50%", "%s"}, {"line\nbreak", "ümlaut"}
+    };
+
+    @Test
+    void testTextIsIdenticalToFormat() {
+        final String pattern = "- %s: %s%%, done%n";
+        final RowTemplate template = RowTemplate.text(pattern);
+        for (final String[] values : VALUES) {
+            final StringWriter writer = new StringWriter();
+            final PrintWriter pw = new PrintWriter(writer);
+            template.print(pw, values);
+            pw.flush();
+            assertEquals(String.format(pattern, (Object[]) values), writer.toString());
+            assertEquals(
+                    String.format(pattern, (Object[]) values),
+                    template.append(new StringBuilder(), values).toString());
+        }
+    }
+
+    @Test
+    void testHtmlIsIdenticalToFormatWithEscapedValues() {
+        final String pattern = "<tr><td>%s</td><td>%s</td></tr>";
+        final RowTemplate template = RowTemplate.html(pattern);
+        final AbstractWebConsolePlugin plugin = new OsgiInstallerWebConsolePlugin();
+        for (final String[] values : VALUES) {
+            final String expected = String.format(pattern, plugin.escapeXml(values[0]), plugin.escapeXml(values[1]));
+            assertEquals(expected, template.append(new StringBuilder(), values).toString());
+            final StringWriter writer = new StringWriter();
+            template.print(new PrintWriter(writer), values);
+            assertEquals(expected, writer.toString());
+        }
+    }
+
+    @Test
+    void testAppendsToExistingContent() {
+        final StringBuilder b = new StringBuilder("start|");
+        RowTemplate.html("%s").append(b, "a&b");
+        assertEquals("start|a&amp;b", b.toString());
+    }
+
+    @Test
+    void testInvalidPattern() {
+        assertThrows(IllegalArgumentException.class, () -> RowTemplate.text("%d"));
+        assertThrows(IllegalArgumentException.class, () -> RowTemplate.text("trailing %"));
+    }
+
+    @Test
+    void testWrongNumberOfValues() {
+        final RowTemplate template = RowTemplate.text("%s, %s");
+        assertThrows(IllegalArgumentException.class, () -> template.append(new StringBuilder(), "a"));
+    }
+}
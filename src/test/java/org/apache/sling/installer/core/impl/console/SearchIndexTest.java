@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.console;
+
+import java.util.List;
+
+import org.apache.sling.installer.api.info.InstallationState;
+import org.apache.sling.installer.core.impl.console.StubInstallationState.StubResource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.apache.sling.installer.core.impl.console.StubInstallationState.group;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ */
+class SearchIndexTest {
+
+    private SearchIndex index;
+
+    private static StubResource resource(final String entityId, final String url) {
+        return StubInstallationState.resource(entityId).withUrl(url);
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        final InstallationState state = new StubInstallationState(
+                List.of(group(
+                        resource("bundle:org.apache.sling.api", "jcrinstall:/libs/install/api.jar"),
+                        resource("bundle:org.apache.sling.api", "launchpad:resources/api.jar"))),
+                List.of(
+                        group(
+                                "org.apache.sling.Factory~Alias",
+                                resource(
+                                        "config:org.apache.sling.Factory~one",
+                                        "jcrinstall:/apps/config/Factory-one.cfg.json")),
+                        group(resource("bundle:org.apache.sling.engine", null)),
+                        group()),
+                List.of(resource("file:readme", "launchpad:resources/Readme.TXT")));
+        index = new SearchIndex(state);
+    }
+
+    private static List<String> entityIds(final SearchIndex.Result result) {
+        return result.documents().stream().map(d -> d.resource().getEntityId()).toList();
+    }
+
+    private static List<String> urls(final SearchIndex.Result result) {
+        return result.documents().stream().map(d -> d.resource().getURL()).toList();
+    }
+
+    @Test
+    void testDocumentCount() {
+        assertEquals(5, index.getDocumentCount());
+    }
+
+    @Test
+    void testPrefixOfEntityId() {
+        final SearchIndex.Result result = index.findPrefix("org.apache.sling.", 10);
+        // ordered by the matched token, an entity id and an alias of the same document count once
+        assertEquals(
+                List.of(
+                        "bundle:org.apache.sling.api",
+                        "bundle:org.apache.sling.api",
+                        "bundle:org.apache.sling.engine",
+                        "config:org.apache.sling.Factory~one"),
+                entityIds(result));
+        assertFalse(result.truncated());
+        assertEquals(
+                OsgiInstallerWebConsolePlugin.SECTION_ACTIVE,
+                result.documents().get(0).section());
+    }
+
+    @Test
+    void testPrefixOfTypedEntityIdAliasAndUrl() {
+        assertEquals(
+                2,
+                index.findPrefix("BUNDLE:org.apache.sling.api", 10).documents().size());
+        assertEquals(
+                "org.apache.sling.Factory~Alias",
+                index.findPrefix("org.apache.sling.factory~a", 10)
+                        .documents()
+                        .get(0)
+                        .alias());
+        assertEquals(List.of("launchpad:resources/api.jar"), urls(index.findPrefix("launchpad:resources/a", 10)));
+        // last segment of the URL
+        assertEquals(List.of("launchpad:resources/Readme.TXT"), urls(index.findPrefix("readme.t", 10)));
+        assertTrue(index.findPrefix("apps", 10).documents().isEmpty());
+    }
+
+    @Test
+    void testSubstring() {
+        assertEquals(
+                List.of("jcrinstall:/libs/install/api.jar", "launchpad:resources/api.jar"),
+                urls(index.findSubstring("api", 10)));
+        assertEquals(List.of("jcrinstall:/apps/config/Factory-one.cfg.json"), urls(index.findSubstring("/APPS/", 10)));
+        // fields are searched separately
+        assertTrue(index.findSubstring("api.jarlaunchpad", 10).documents().isEmpty());
+    }
+
+    @Test
+    void testLimit() {
+        SearchIndex.Result result = index.findSubstring("sling", 2);
+        assertEquals(2, result.documents().size());
+        assertTrue(result.truncated());
+        result = index.findPrefix("org.apache.sling", 3);
+        assertEquals(3, result.documents().size());
+        assertTrue(result.truncated());
+        result = index.findSubstring("sling", 4);
+        assertEquals(4, result.documents().size());
+        assertFalse(result.truncated());
+    }
+
+    @Test
+    void testEmptyQuery() {
+        assertTrue(index.findPrefix(null, 10).documents().isEmpty());
+        assertTrue(index.findPrefix("  ", 10).documents().isEmpty());
+        assertTrue(index.findSubstring("", 10).documents().isEmpty());
+        assertTrue(index.findSubstring("a\nb", 10).documents().isEmpty());
+    }
+
+    @Test
+    void testLargeIndex() {
+        final SearchIndex large = new SearchIndex(StubInstallationState.generate(10_000, 0));
+        assertEquals(12_000, large.getDocumentCount());
+        final SearchIndex.Result result = large.findPrefix("org.example.entity123", 100);
+        // entity123 and entity1230 to entity1239, two of them with an alternate
+        assertEquals(13, result.documents().size());
+        assertEquals("properties:org.example.entity123", entityIds(result).get(0));
+        assertEquals(13, large.findSubstring("entity123", 100).documents().size());
+    }
+}
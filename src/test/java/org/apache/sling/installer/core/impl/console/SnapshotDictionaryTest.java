@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.console;
+
+import org.apache.sling.installer.api.InstallableResource;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ */
+class SnapshotDictionaryTest {
+
+    @Test
+    void testKnownTypesHaveFixedCodes() {
+        final SnapshotDictionary.Builder builder = new SnapshotDictionary.Builder();
+        assertEquals(1, builder.intern(InstallableResource.TYPE_CONFIG));
+        assertEquals(0, builder.intern(InstallableResource.TYPE_BUNDLE));
+        // equal types which are not the constants of the api
+        assertEquals(1, builder.intern(new String(InstallableResource.TYPE_CONFIG)));
+        final SnapshotDictionary dictionary = builder.build();
+        assertEquals(4, dictionary.size());
+        assertEquals(0, dictionary.getCode(InstallableResource.TYPE_BUNDLE));
+        assertEquals(1, dictionary.getCode(InstallableResource.TYPE_CONFIG));
+        assertEquals(2, dictionary.getCode(InstallableResource.TYPE_FILE));
+        assertEquals(3, dictionary.getCode(InstallableResource.TYPE_PROPERTIES));
+        assertEquals(1, dictionary.getCode(new String(InstallableResource.TYPE_CONFIG)));
+        assertEquals("Bundles", dictionary.getLabel(0));
+        assertEquals("Configurations", dictionary.getLabel(1));
+        assertEquals("Files", dictionary.getLabel(2));
+        assertEquals("Properties", dictionary.getLabel(3));
+    }
+
+    @Test
+    void testOtherTypes() {
+        final SnapshotDictionary.Builder builder = new SnapshotDictionary.Builder();
+        assertEquals(4, builder.intern("invalid"));
+        assertEquals(2, builder.intern(InstallableResource.TYPE_FILE));
+        assertEquals(5, builder.intern("other"));
+        assertEquals(4, builder.intern("invalid"));
+        final SnapshotDictionary dictionary = builder.build();
+        assertEquals(6, dictionary.size());
+        assertEquals(4, dictionary.getCode("invalid"));
+        assertEquals(5, dictionary.getCode("other"));
+        assertEquals("other", dictionary.getType(5));
+        assertEquals("invalid", dictionary.getLabel(4));
+        assertEquals(-1, dictionary.getCode("missing"));
+        assertEquals(-1, dictionary.getCode(null));
+    }
+
+    @Test
+    void testIdStart() {
+        final SnapshotDictionary.Builder builder = new SnapshotDictionary.Builder();
+        final int other = builder.intern("x:y");
+        final SnapshotDictionary dictionary = builder.build();
+        final int config = dictionary.getCode(InstallableResource.TYPE_CONFIG);
+        final int bundle = dictionary.getCode(InstallableResource.TYPE_BUNDLE);
+        assertEquals(7, dictionary.getIdStart(config, "config:org.example:a"));
+        // the prefix of the entity id does not match the type
+        assertEquals(7, dictionary.getIdStart(config, "bundle:org.example"));
+        assertEquals(8, dictionary.getIdStart(-1, "missing:org.example"));
+        assertEquals(0, dictionary.getIdStart(bundle, "org.example"));
+        assertEquals(0, dictionary.getIdStart(bundle, ""));
+        // types containing the separator have no prefix
+        assertEquals(2, dictionary.getIdStart(other, "x:y:org.example"));
+    }
+}
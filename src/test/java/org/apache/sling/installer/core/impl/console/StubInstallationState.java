@@ -0,0 +1,276 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.console;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Dictionary;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.sling.installer.api.InstallableResource;
+import org.apache.sling.installer.api.info.InstallationState;
+import org.apache.sling.installer.api.info.Resource;
+import org.apache.sling.installer.api.info.ResourceGroup;
+import org.apache.sling.installer.api.tasks.RegisteredResource;
+import org.apache.sling.installer.api.tasks.ResourceState;
+import org.apache.sling.installer.api.tasks.TaskResource;
+import org.osgi.framework.Version;
+
+/**
+ * Plain implementation of the installation state for large, generated states where
+ * mocks would dominate the measured time.
+ */
+record StubInstallationState(
+        List<ResourceGroup> active, List<ResourceGroup> installed, List<RegisteredResource> untransformed)
+        implements InstallationState {
+
+    private static final String[] TYPES = {
+        InstallableResource.TYPE_BUNDLE,
+        InstallableResource.TYPE_CONFIG,
+        InstallableResource.TYPE_FILE,
+        InstallableResource.TYPE_PROPERTIES
+    };
+
+    record StubResource(
+            String type,
+            String entityId,
+            String url,
+            String digest,
+            int priority,
+            ResourceState state,
+            long lastChange,
+            Version version,
+            String error,
+            Map<String, Object> attributes)
+            implements Resource {
+
+        StubResource withUrl(final String url) {
+            return new StubResource(
+                    type, entityId, url, digest, priority, state, lastChange, version, error, attributes);
+        }
+
+        StubResource withDigest(final String digest) {
+            return new StubResource(
+                    type, entityId, url, digest, priority, state, lastChange, version, error, attributes);
+        }
+
+        StubResource withPriority(final int priority) {
+            return new StubResource(
+                    type, entityId, url, digest, priority, state, lastChange, version, error, attributes);
+        }
+
+        StubResource withVersion(final Version version) {
+            return new StubResource(
+                    type, entityId, url, digest, priority, state, lastChange, version, error, attributes);
+        }
+
+        StubResource withLastChange(final long lastChange) {
+            return new StubResource(
+                    type, entityId, url, digest, priority, state, lastChange, version, error, attributes);
+        }
+
+        StubResource withAttribute(final String key, final Object value) {
+            final Map<String, Object> attributes = new HashMap<>(this.attributes);
+            attributes.put(key, value);
+            return new StubResource(
+                    type, entityId, url, digest, priority, state, lastChange, version, error, attributes);
+        }
+
+        @Override
+        public String getScheme() {
+            return this.url.substring(0, this.url.indexOf(':'));
+        }
+
+        @Override
+        public String getURL() {
+            return this.url;
+        }
+
+        @Override
+        public String getType() {
+            return this.type;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return null;
+        }
+
+        @Override
+        public Dictionary<String, Object> getDictionary() {
+            return new Hashtable<>();
+        }
+
+        @Override
+        public String getDigest() {
+            return this.digest;
+        }
+
+        @Override
+        public int getPriority() {
+            return this.priority;
+        }
+
+        @Override
+        public String getEntityId() {
+            return this.entityId;
+        }
+
+        @Override
+        public ResourceState getState() {
+            return this.state;
+        }
+
+        @Override
+        public String getError() {
+            return this.error;
+        }
+
+        @Override
+        public Version getVersion() {
+            return this.version;
+        }
+
+        @Override
+        public long getLastChange() {
+            return this.lastChange;
+        }
+
+        @Override
+        public Object getAttribute(final String key) {
+            return this.attributes.get(key);
+        }
+    }
+
+    record StubGroup(List<Resource> resources, String alias) implements ResourceGroup {
+
+        @Override
+        public List<Resource> getResources() {
+            return this.resources;
+        }
+
+        @Override
+        public String getAlias() {
+            return this.alias;
+        }
+    }
+
+    /**
+     * Create an installed resource without URL and digest
+     * @param entityId The entity id, its prefix up to the first {@code ':'} is the type
+     */
+    static StubResource resource(final String entityId) {
+        final int separator = entityId.indexOf(':');
+        final String type = separator != -1 ? entityId.substring(0, separator) : null;
+        return new StubResource(type, entityId, null, null, 0, ResourceState.INSTALLED, 0, null, null, Map.of());
+    }
+
+    static StubGroup group(final Resource... resources) {
+        return group(null, resources);
+    }
+
+    static StubGroup group(final String alias, final Resource... resources) {
+        return new StubGroup(List.of(resources), alias);
+    }
+
+    @Override
+    public List<ResourceGroup> getActiveResources() {
+        return this.active;
+    }
+
+    @Override
+    public List<ResourceGroup> getInstalledResources() {
+        return this.installed;
+    }
+
+    @Override
+    public List<RegisteredResource> getUntransformedResources() {
+        return this.untransformed;
+    }
+
+    /**
+     * Generate a state with interleaved types, a tenth of the resources being active,
+     * a tenth untransformed and the others processed, every fifth processed group with an alternate.
+     * @param count The number of resources
+     * @param time The time of the most recent change
+     */
+    static StubInstallationState generate(final int count, final long time) {
+        final List<ResourceGroup> active = new ArrayList<>();
+        final List<ResourceGroup> installed = new ArrayList<>();
+        final List<RegisteredResource> untransformed = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final String type = TYPES[i % TYPES.length];
+            final String entityId = type + ":org.example.entity" + i;
+            final String url = "jcrinstall:/apps/example/install/entity" + i;
+            final String digest = Integer.toHexString(i * 31 + 7);
+            if (i % 10 == 0) {
+                untransformed.add(new StubResource(
+                        type, entityId, url, digest, 100, ResourceState.INSTALL, 0, null, null, Map.of()));
+            } else if (i % 10 == 1) {
+                active.add(new StubGroup(
+                        List.of(new StubResource(
+                                type,
+                                entityId,
+                                url,
+                                digest,
+                                100,
+                                ResourceState.INSTALL,
+                                0,
+                                new Version(1, 0, i),
+                                null,
+                                Map.of())),
+                        null));
+            } else {
+                final Map<String, Object> attributes =
+                        i % 7 == 0 ? Map.of(TaskResource.ATTR_INSTALL_INFO, "installed by start level rule") : Map.of();
+                final Resource first = new StubResource(
+                        type,
+                        entityId,
+                        url,
+                        digest,
+                        200,
+                        ResourceState.INSTALLED,
+                        time - (count - i) * 1000L,
+                        new Version(1, 0, i),
+                        i % 13 == 0 ? "failed <" + i + ">" : null,
+                        attributes);
+                if (i % 5 == 2) {
+                    final Resource alternate = new StubResource(
+                            type,
+                            entityId,
+                            "launchpad:resources/install/entity" + i,
+                            digest + "0",
+                            100,
+                            ResourceState.IGNORED,
+                            0,
+                            new Version(1, 0, 0),
+                            null,
+                            Map.of());
+                    installed.add(new StubGroup(List.of(first, alternate), "alias" + i));
+                } else {
+                    installed.add(new StubGroup(List.of(first), null));
+                }
+            }
+        }
+        return new StubInstallationState(List.copyOf(active), List.copyOf(installed), List.copyOf(untransformed));
+    }
+}
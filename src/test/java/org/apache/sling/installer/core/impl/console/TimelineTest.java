@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.console;
+
+import java.util.List;
+
+import org.apache.sling.installer.api.info.InstallationState;
+import org.apache.sling.installer.core.impl.console.StubInstallationState.StubResource;
+import org.junit.jupiter.api.Test;
+
+import static org.apache.sling.installer.core.impl.console.StubInstallationState.group;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ */
+class TimelineTest {
+
+    private static StubResource resource(final String entityId, final long lastChange) {
+        return StubInstallationState.resource(entityId).withLastChange(lastChange);
+    }
+
+    private static InstallationState createState() {
+        return new StubInstallationState(
+                List.of(group(resource("a", 30)), group(resource("b", -1))),
+                List.of(
+                        group(resource("c", 10), resource("d", 50)),
+                        group(resource("e", 20)),
+                        group(resource("f", 30)),
+                        group(resource("g", 0)),
+                        group()),
+                List.of());
+    }
+
+    private static List<String> entityIds(final Timeline timeline) {
+        return timeline.getEntries().stream()
+                .map(entry -> entry.resource().getEntityId())
+                .toList();
+    }
+
+    @Test
+    void testNewestFirst() {
+        final Timeline timeline = new Timeline(createState(), 3);
+        assertEquals(3, timeline.getLimit());
+        assertEquals(5, timeline.getChangedCount());
+        // for equal times the resource appearing first is ranked higher
+        assertEquals(List.of("d", "a", "f"), entityIds(timeline));
+        assertEquals(
+                OsgiInstallerWebConsolePlugin.SECTION_PROCESSED,
+                timeline.getEntries().get(0).section());
+        assertEquals(
+                OsgiInstallerWebConsolePlugin.SECTION_ACTIVE,
+                timeline.getEntries().get(1).section());
+    }
+
+    @Test
+    void testLimitAboveChanges() {
+        assertEquals(List.of("d", "a", "f", "e", "c"), entityIds(new Timeline(createState(), 100)));
+    }
+
+    @Test
+    void testZeroLimit() {
+        final Timeline timeline = new Timeline(createState(), 0);
+        assertTrue(timeline.getEntries().isEmpty());
+        assertEquals(5, timeline.getChangedCount());
+    }
+
+    @Test
+    void testSelectsFromLargeState() {
+        final StubInstallationState state = StubInstallationState.generate(10_000, 1_000_000_000L);
+        final List<Timeline.Entry> entries = new Timeline(state, 100).getEntries();
+        assertEquals(100, entries.size());
+        assertEquals(1_000_000_000L - 1000, entries.get(0).resource().getLastChange());
+        for (int i = 1; i < entries.size(); i++) {
+            assertTrue(entries.get(i - 1).resource().getLastChange()
+                    > entries.get(i).resource().getLastChange());
+        }
+    }
+}
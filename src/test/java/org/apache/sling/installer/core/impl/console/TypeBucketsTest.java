@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.installer.core.impl.console;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ */
+class TypeBucketsTest {
+
+    private static final List<String> ITEMS = List.of("51", "21", "52", "01", "22", "53");
+
+    private static TypeBuckets<String> of(final List<String> items) {
+        return TypeBuckets.of(items, s -> s.charAt(0) - '0');
+    }
+
+    @Test
+    void testOf() {
+        final TypeBuckets<String> buckets = of(ITEMS);
+        assertEquals(3, buckets.size());
+        assertFalse(buckets.isEmpty());
+        assertEquals(5, buckets.getCode(0));
+        assertEquals(2, buckets.getCode(1));
+        assertEquals(0, buckets.getCode(2));
+        assertEquals(List.of("51", "52", "53"), buckets.get(5));
+        assertEquals(List.of("21", "22"), buckets.get(2));
+        assertEquals(List.of("01"), buckets.get(0));
+        assertEquals(List.of(), buckets.get(1));
+        assertEquals(List.of(), buckets.get(9));
+        assertEquals(List.of(), buckets.get(-1));
+        assertEquals(6, buckets.getItemCount());
+    }
+
+    @Test
+    void testOfEmpty() {
+        final TypeBuckets<String> buckets = of(List.of());
+        assertTrue(buckets.isEmpty());
+        assertEquals(0, buckets.size());
+        assertEquals(0, buckets.getItemCount());
+    }
+
+    @Test
+    void testSelect() {
+        final TypeBuckets<String> selected = of(ITEMS).select(2);
+        assertEquals(1, selected.size());
+        assertEquals(2, selected.getCode(0));
+        assertEquals(List.of("21", "22"), selected.get(2));
+        assertEquals(List.of(), selected.get(5));
+        assertEquals(2, selected.getItemCount());
+
+        assertTrue(of(ITEMS).select(1).isEmpty());
+        assertTrue(of(ITEMS).select(-1).isEmpty());
+        assertTrue(of(ITEMS).select(9).isEmpty());
+    }
+}